@@ -1,6 +1,8 @@
 package ast;
 
 import emitter.Emitter;
+import emitter.Opcode;
+import environment.Environment;
 
 /**
  * An Assignment is a type of Statement where a
@@ -14,6 +16,8 @@ public class Assignment extends Statement
 {
 	private String var;
 	private Expression exp;
+	private int slot;
+	private boolean global;
 	
 	/**
 	 * Creates a new Assignment with a given variable name
@@ -27,6 +31,7 @@ public class Assignment extends Statement
 	{
 		var = str;
 		exp = expr;
+		slot = -1;
 	}
 	
 	/**
@@ -70,6 +75,39 @@ public class Assignment extends Statement
 	{
 		this.exp = exp;
 	}
+
+	/**
+	 * Retrieves the slot of the assigned variable, which is assigned by a SlotResolver.
+	 * 
+	 * @return the slot, or -1 if the assigned variable has not been resolved
+	 */
+	public int getSlot()
+	{
+		return slot;
+	}
+	
+	/**
+	 * Tells whether the slot of the assigned variable is in the global Environment
+	 * rather than in the frame of the current procedure.
+	 * 
+	 * @return true if the assigned variable is global; otherwise, false
+	 */
+	public boolean isGlobal()
+	{
+		return global;
+	}
+	
+	/**
+	 * Sets the slot of the assigned variable.
+	 * 
+	 * @param index the slot
+	 * @param isGlobal whether the slot is in the global Environment
+	 */
+	public void setSlot(int index, boolean isGlobal)
+	{
+		slot = index;
+		global = isGlobal;
+	}
 	
 	/**
 	 * Compiles an assignment by first compiling
@@ -79,24 +117,50 @@ public class Assignment extends Statement
 	 * is stored directly into the variable. If the variable is a local
 	 * variable, the value in $v0 is loaded into the variable's address
 	 * in the stack which is obtained by adding the variable's offset
-	 * to the current stack pointer address ($sp).
+	 * to the frame pointer address ($fp). A parameter that is kept in an
+	 * argument register has the expression compiled straight into it.
 	 * 
 	 * @param e the Emitter used to emit MIPS code
 	 */
 	public void compile(Emitter e)
 	{
-		e.emit("#" + var);
-		exp.compile(e);
+		e.emitComment(var);
 		if (e.getProcedureContext() == null || !e.isLocalVariable(var))
 		{
-			e.emit("sw $v0, " + var);
+			exp.compile(e);
+			e.emit(Opcode.SW_SYM, Emitter.V0, e.symbol(var));
+		}
+		else if (e.getRegister(var) >= 0)
+		{
+			exp.compile(e, e.getRegister(var), 0);
 		}
 		else
 		{
-			int offSet = e.getOffSet(var);
-			e.emit("sw $v0, " + offSet + "($sp)");
+			exp.compile(e);
+			e.emit(Opcode.SW, Emitter.V0, e.getOffSet(var), Emitter.FP);
 		}
-		e.emit("# assignment done");
+		e.emitComment("assignment done");
 	}
 	
+	/**
+	 * Determines whether the assigned Expression calls a procedure.
+	 * 
+	 * @return true if the Expression contains a ProcedureCall; otherwise, false
+	 */
+	public boolean hasCall()
+	{
+		return exp.hasCall();
+	}
+	
+	/**
+	 * Executes the ASSIGNMENT statement by passing it to the Evaluator's exec
+	 * method for Assignments.
+	 * 
+	 * @param ev the Evaluator that executes the ASSIGNMENT statement
+	 * @param env the Environment where the execution happens
+	 */
+	public void exec(Evaluator ev, Environment env)
+	{
+		ev.exec(this, env);
+	}
 }
@@ -1,10 +1,14 @@
 package ast;
 
 import emitter.Emitter;
+import emitter.Opcode;
+import environment.Environment;
 
 /**
  * A BinOp (binary operator) consists of two expressions
- * that are related by an operand.
+ * that are related by an operand. The operand is looked up once, when
+ * it is set, so that evaluating the BinOp can switch on an OPERATOR
+ * instead of comparing strings.
  * 
  * @author Ashwin Rammohan
  * @version October 12, 2017
@@ -12,7 +16,52 @@ import emitter.Emitter;
  */
 public class BinOp extends Expression
 {
+	/**
+	 * The arithmetic operators that a BinOp can apply, with their spellings.
+	 */
+	public static enum OPERATOR
+	{
+		PLUS("+"), MINUS("-"), TIMES("*"), DIVIDE("/"), MOD("mod");
+		
+		private final String spelling;
+		
+		private OPERATOR(String str)
+		{
+			spelling = str;
+		}
+		
+		/**
+		 * Retrieves the spelling of the operator.
+		 * 
+		 * @return the spelling of the operator
+		 */
+		public String getSpelling()
+		{
+			return spelling;
+		}
+		
+		/**
+		 * Finds the operator with a given spelling.
+		 * 
+		 * @param str the spelling of the operator
+		 * @return the operator with that spelling
+		 * @throws IllegalArgumentException if no operator has that spelling
+		 */
+		public static OPERATOR of(String str)
+		{
+			for (OPERATOR o: values())
+			{
+				if (o.spelling.equals(str))
+				{
+					return o;
+				}
+			}
+			throw new IllegalArgumentException("Unknown operator: " + str);
+		}
+	}
+	
 	private String op;
+	private OPERATOR operator;
 	private Expression exp1;
 	private Expression exp2;
 	
@@ -27,6 +76,7 @@ public class BinOp extends Expression
 	public BinOp(String str, Expression e1, Expression e2)
 	{
 		op = str;
+		operator = OPERATOR.of(str);
 		exp1 = e1;
 		exp2 = e2;
 	}
@@ -47,6 +97,16 @@ public class BinOp extends Expression
 	public void setOp(String op)
 	{
 		this.op = op;
+		operator = OPERATOR.of(op);
+	}
+	
+	/**
+	 * Returns the operator that the operand stands for.
+	 * @return the operator relating the two Expressions
+	 */
+	public OPERATOR getOperator()
+	{
+		return operator;
 	}
 
 	/**
@@ -86,41 +146,118 @@ public class BinOp extends Expression
 	}
 	
 	/**
-	 * Compiles a BinOp by first compiling the first Expression. The value
-	 * of the first Expression is then pushed onto the stack. Then,
-	 * the second Expression is compiled (leaving its value in $v0).
-	 * The value of the first Expression is popped off of the stack
-	 * and loaded into $t0. Then, based on the value of the relational
-	 * operator in the Binop, a mathematical operation is performed
-	 * on the two registers, and the result is stored in $v0.
+	 * Compiles a BinOp, leaving its value in $v0.
 	 * 
 	 * @param e the Emitter used to emit MIPS code
 	 */
 	public void compile(Emitter e)
 	{
-		exp1.compile(e);
-		e.emitPush("$v0");//pushes value of $v0 (exp1) onto stack
-		exp2.compile(e); //$v0 now has the value of exp2
-		
-		e.emitPop("$t0");//pops the value off of the stack (exp1)
-		//and into $t0
-		switch(op)
+		compile(e, Emitter.V0, 0);
+	}
+	
+	/**
+	 * Compiles a BinOp into a register. Adding or subtracting a Number that
+	 * fits in 16 bits is done with addiu on the first Expression's register.
+	 * Otherwise both Expressions are compiled into registers, and then,
+	 * based on the operator, a mathematical operation is performed on the
+	 * two registers and the result is stored in the target register.
+	 * 
+	 * @param e the Emitter used to emit MIPS code
+	 * @param target the register that receives the value
+	 * @param base the index of the first free register
+	 */
+	public void compile(Emitter e, int target, int base)
+	{
+		int imm = immediate();
+		if (imm != Integer.MIN_VALUE)
 		{
-			case "+":
-				e.emit("addu $v0, $v0, $t0");
+			exp1.compile(e, target, base);
+			e.emit(Opcode.ADDIU, target, target, imm);
+			return;
+		}
+		int[] regs = compileOperands(e, exp1, exp2, base);
+		switch (operator)
+		{
+			case PLUS:
+				e.emit(Opcode.ADDU, target, regs[0], regs[1]);
+				break;
+			case MINUS:
+				e.emit(Opcode.SUBU, target, regs[0], regs[1]);
 				break;
-			case "-":
-				e.emit("subu $v0, $t0, $v0");
+			case TIMES:
+				e.emit(Opcode.MULT, regs[0], regs[1]);
+				e.emit(Opcode.MFLO, target);
 				break;
-			case "*":
-				e.emit("mult $v0, $t0");
-				e.emit("mflo $v0");
+			case DIVIDE:
+				e.emit(Opcode.DIV, regs[0], regs[1]);
+				e.emit(Opcode.MFLO, target);
 				break;
-			case "/":
-				e.emit("div $t0, $v0");
-				e.emit("mflo $vo");
+			case MOD:
+				e.emit(Opcode.DIV, regs[0], regs[1]);
+				e.emit(Opcode.MFHI, target);
 				break;
 		}
-		
+	}
+	
+	/**
+	 * Finds the immediate operand for addiu when this BinOp adds or subtracts
+	 * a Number that fits in 16 bits.
+	 * 
+	 * @return the value to add, or Integer.MIN_VALUE if there is none
+	 */
+	private int immediate()
+	{
+		if (!(exp2 instanceof Number)
+				|| operator != OPERATOR.PLUS && operator != OPERATOR.MINUS)
+		{
+			return Integer.MIN_VALUE;
+		}
+		int value = ((Number) exp2).getValue();
+		if (operator == OPERATOR.MINUS)
+		{
+			value = -value;
+		}
+		return value >= -32768 && value <= 32767 ? value : Integer.MIN_VALUE;
+	}
+	
+	/**
+	 * Returns the number of registers needed to compute this BinOp: one more
+	 * than its Expressions need if they need the same number, or else the
+	 * larger of the two.
+	 * 
+	 * @return the number of registers needed
+	 */
+	public int getRegisterNeed()
+	{
+		int need1 = exp1.getRegisterNeed();
+		if (immediate() != Integer.MIN_VALUE)
+		{
+			return need1;
+		}
+		int need2 = exp2.getRegisterNeed();
+		return need1 == need2 ? need1 + 1 : Math.max(need1, need2);
+	}
+	
+	/**
+	 * Determines whether either Expression of this BinOp calls a procedure.
+	 * 
+	 * @return true if either Expression contains a ProcedureCall; otherwise, false
+	 */
+	public boolean hasCall()
+	{
+		return exp1.hasCall() || exp2.hasCall();
+	}
+	
+	/**
+	 * Evaluates the BinOp by passing it to the Evaluator's eval
+	 * method for BinOps.
+	 * 
+	 * @param ev the Evaluator that evaluates the BinOp
+	 * @param env the Environment where the evaluation happens
+	 * @return the numerical value of the BinOp
+	 */
+	public int eval(Evaluator ev, Environment env)
+	{
+		return ev.eval(this, env);
 	}
 }
@@ -3,6 +3,7 @@ package ast;
 import java.util.List;
 
 import emitter.Emitter;
+import environment.Environment;
 
 /**
  * A Block is a type of Statement that is made up
@@ -63,4 +64,33 @@ public class Block extends Statement
 		}
 	}
 	
+	/**
+	 * Determines whether any Statement in the Block calls a procedure or
+	 * makes a syscall.
+	 * 
+	 * @return true if a Statement does; otherwise, false
+	 */
+	public boolean hasCall()
+	{
+		for (Statement s: stmts)
+		{
+			if (s.hasCall())
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Executes the BLOCK by passing it to the Evaluator's exec
+	 * method for Blocks.
+	 * 
+	 * @param ev the Evaluator that executes the BLOCK
+	 * @param env the Environment where the execution happens
+	 */
+	public void exec(Evaluator ev, Environment env)
+	{
+		ev.exec(this, env);
+	}
 }
@@ -0,0 +1,380 @@
+package ast;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import emitter.ClassFileWriter;
+import emitter.ClassFileWriter.MethodWriter;
+import environment.Environment;
+
+/**
+ * A BytecodeCompiler compiles a Program into a Java class, loads the class
+ * into the running JVM, and runs it, so that the Program runs at the speed of
+ * JIT-compiled Java code. The class has a static int field for each global
+ * variable and a static method for each procedure, whose parameters and
+ * local variables become the method's int parameters and local variables.
+ * The main statement becomes a static method named run, which takes the
+ * slots of the global Environment, copies them into the fields, and copies
+ * the fields back when the Program finishes.
+ * 
+ * Variables are resolved by a SlotResolver, so the compiled Program follows
+ * the same scoping rules as the Evaluator and prints the same WRITELN output.
+ * 
+ * Usage:
+ * new BytecodeCompiler(env).exec(program);
+ * 
+ * @author Ashwin Rammohan
+ * @version October 17, 2026
+ *
+ */
+public class BytecodeCompiler
+{
+	private static final String CLASS_NAME = "CompiledProgram";
+	
+	/**
+	 * A ProgramLoader defines a single compiled class. Each compiled Program
+	 * gets a loader of its own, so the class can be unloaded once the
+	 * Program is no longer used.
+	 */
+	private static class ProgramLoader extends ClassLoader
+	{
+		/**
+		 * Creates a ProgramLoader whose parent is the loader of the compiler.
+		 */
+		private ProgramLoader()
+		{
+			super(BytecodeCompiler.class.getClassLoader());
+		}
+		
+		/**
+		 * Defines a class from the bytes of its class file.
+		 * 
+		 * @param name the binary name of the class
+		 * @param bytes the class file
+		 * @return the new class
+		 */
+		private Class<?> define(String name, byte[] bytes)
+		{
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+	
+	private Environment env;
+	private ClassFileWriter cw;
+	private Map<ProcedureDeclaration, String> methodNames;
+	private MethodWriter m;
+	private int frameBase;
+	
+	/**
+	 * Creates a new BytecodeCompiler whose global variables are kept in the
+	 * slots of an Environment's global Environment.
+	 * 
+	 * @param environment the Environment that holds the global variables
+	 */
+	public BytecodeCompiler(Environment environment)
+	{
+		env = environment;
+	}
+	
+	/**
+	 * Executes a Program. The Program's variables are resolved to slots, the
+	 * Program is compiled to a class and loaded, and then the class's run
+	 * method is called with the slots of the global Environment.
+	 * 
+	 * @param program the Program to be executed
+	 */
+	public void exec(Program program)
+	{
+		new SlotResolver().resolve(program, env);
+		Class<?> c = new ProgramLoader().define(CLASS_NAME, compile(program));
+		try
+		{
+			c.getMethod("run", int[].class).invoke(null, (Object) env.getGlobalSlots());
+		}
+		catch (InvocationTargetException e)
+		{
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error)
+			{
+				throw (Error) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+	
+	/**
+	 * Compiles a resolved Program into the class file of a class named
+	 * CompiledProgram.
+	 * 
+	 * @param program the Program, which must have been resolved
+	 * @return the class file
+	 */
+	public byte[] compile(Program program)
+	{
+		cw = new ClassFileWriter(CLASS_NAME, "java/lang/Object");
+		methodNames = new HashMap<ProcedureDeclaration, String>();
+		int count = program.getGlobalCount();
+		for (int i = 0; i < count; i ++)
+		{
+			cw.addField(ClassFileWriter.ACC_STATIC, "g" + i, "I");
+		}
+		List<ProcedureDeclaration> procedures = program.getProcedures();
+		for (int i = 0; i < procedures.size(); i ++)
+		{
+			methodNames.put(procedures.get(i), "p" + i + "_" + procedures.get(i).getProcedureName());
+		}
+		for (ProcedureDeclaration pd: procedures)
+		{
+			compile(pd);
+		}
+		
+		m = cw.addMethod(ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_STATIC, "run", "([I)V");
+		frameBase = 1;
+		for (int i = 0; i < count; i ++)
+		{
+			m.local(ClassFileWriter.ALOAD, 0);
+			m.iconst(i);
+			m.op(ClassFileWriter.IALOAD, -1);
+			m.field(ClassFileWriter.PUTSTATIC, CLASS_NAME, "g" + i, "I");
+		}
+		compile(program.getStatement());
+		for (int i = 0; i < count; i ++)
+		{
+			m.local(ClassFileWriter.ALOAD, 0);
+			m.iconst(i);
+			m.field(ClassFileWriter.GETSTATIC, CLASS_NAME, "g" + i, "I");
+			m.op(ClassFileWriter.IASTORE, -3);
+		}
+		m.op(ClassFileWriter.RETURN, 0);
+		return cw.toByteArray();
+	}
+	
+	/**
+	 * Retrieves the descriptor of the method for a procedure, which takes an
+	 * int for each parameter and returns an int.
+	 * 
+	 * @param pd the ProcedureDeclaration
+	 * @return the method descriptor
+	 */
+	private static String descriptor(ProcedureDeclaration pd)
+	{
+		StringBuilder desc = new StringBuilder("(");
+		for (int i = 0; i < pd.getParams().size(); i ++)
+		{
+			desc.append('I');
+		}
+		return desc.append(")I").toString();
+	}
+	
+	/**
+	 * Compiles a ProcedureDeclaration into a static method. Frame slot s is
+	 * kept in local variable s, except when two parameters share a name;
+	 * then the arguments are copied into slots placed after them. Every
+	 * other slot starts at 0, and the method returns the return slot.
+	 * 
+	 * @param pd the ProcedureDeclaration
+	 */
+	private void compile(ProcedureDeclaration pd)
+	{
+		List<Expression> params = pd.getParams();
+		if (params.size() > 255)
+		{
+			throw new IllegalStateException("Procedure " + pd.getProcedureName()
+					+ " has too many parameters to compile");
+		}
+		m = cw.addMethod(ClassFileWriter.ACC_STATIC, methodNames.get(pd), descriptor(pd));
+		frameBase = 0;
+		for (int i = 0; i < params.size(); i ++)
+		{
+			if (((Variable) params.get(i)).getSlot() != i)
+			{
+				frameBase = params.size();
+			}
+		}
+		boolean[] set = new boolean[pd.getFrameSize()];
+		for (int i = 0; i < params.size(); i ++)
+		{
+			int slot = ((Variable) params.get(i)).getSlot();
+			if (frameBase != 0)
+			{
+				m.local(ClassFileWriter.ILOAD, i);
+				m.local(ClassFileWriter.ISTORE, frameBase + slot);
+			}
+			set[slot] = true;
+		}
+		for (int slot = 0; slot < set.length; slot ++)
+		{
+			if (!set[slot])
+			{
+				m.iconst(0);
+				m.local(ClassFileWriter.ISTORE, frameBase + slot);
+			}
+		}
+		compile(pd.getStatement());
+		m.local(ClassFileWriter.ILOAD, frameBase + pd.getReturnSlot());
+		m.op(ClassFileWriter.IRETURN, -1);
+	}
+	
+	/**
+	 * Compiles a resolved Statement into the current method.
+	 * 
+	 * @param stmt the Statement
+	 */
+	private void compile(Statement stmt)
+	{
+		if (stmt instanceof Writeln)
+		{
+			m.field(ClassFileWriter.GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;");
+			compile(((Writeln) stmt).getExpression());
+			m.invoke(ClassFileWriter.INVOKEVIRTUAL, "java/io/PrintStream", "println", "(I)V");
+		}
+		else if (stmt instanceof Assignment)
+		{
+			Assignment a = (Assignment) stmt;
+			compile(a.getExpression());
+			if (a.isGlobal())
+			{
+				m.field(ClassFileWriter.PUTSTATIC, CLASS_NAME, "g" + a.getSlot(), "I");
+			}
+			else
+			{
+				m.local(ClassFileWriter.ISTORE, frameBase + a.getSlot());
+			}
+		}
+		else if (stmt instanceof Block)
+		{
+			for (Statement s: ((Block) stmt).getStatements())
+			{
+				compile(s);
+			}
+		}
+		else if (stmt instanceof If)
+		{
+			If iff = (If) stmt;
+			int end = m.newLabel();
+			compile(iff.getCond(), end);
+			compile(iff.getStmt());
+			m.mark(end);
+		}
+		else if (stmt instanceof While)
+		{
+			While wh = (While) stmt;
+			int top = m.newLabel();
+			int end = m.newLabel();
+			m.mark(top);
+			compile(wh.getCond(), end);
+			compile(wh.getStmt());
+			m.jump(ClassFileWriter.GOTO, top);
+			m.mark(end);
+		}
+	}
+	
+	/**
+	 * Compiles a resolved Condition into a branch that is taken when the
+	 * Condition is false, like Condition.compile does for MIPS.
+	 * 
+	 * @param cond the Condition
+	 * @param label the label to jump to if the Condition is false
+	 */
+	private void compile(Condition cond, int label)
+	{
+		compile(cond.getExp1());
+		compile(cond.getExp2());
+		switch (cond.getRelopKind())
+		{
+			case LESS:
+				m.jump(ClassFileWriter.IF_ICMPGE, label);
+				break;
+			case GREATER:
+				m.jump(ClassFileWriter.IF_ICMPLE, label);
+				break;
+			case NOT_EQUAL:
+				m.jump(ClassFileWriter.IF_ICMPEQ, label);
+				break;
+			case GREATER_EQUAL:
+				m.jump(ClassFileWriter.IF_ICMPLT, label);
+				break;
+			case LESS_EQUAL:
+				m.jump(ClassFileWriter.IF_ICMPGT, label);
+				break;
+			case EQUAL:
+				m.jump(ClassFileWriter.IF_ICMPNE, label);
+				break;
+			default:
+				m.op(ClassFileWriter.POP, -1);
+				m.op(ClassFileWriter.POP, -1);
+				m.jump(ClassFileWriter.GOTO, label);
+				break;
+		}
+	}
+	
+	/**
+	 * Compiles a resolved Expression into code that leaves its value on
+	 * the operand stack.
+	 * 
+	 * @param exp the Expression
+	 */
+	private void compile(Expression exp)
+	{
+		if (exp instanceof Number)
+		{
+			m.iconst(((Number) exp).getValue());
+		}
+		else if (exp instanceof Variable)
+		{
+			Variable var = (Variable) exp;
+			if (var.isGlobal())
+			{
+				m.field(ClassFileWriter.GETSTATIC, CLASS_NAME, "g" + var.getSlot(), "I");
+			}
+			else
+			{
+				m.local(ClassFileWriter.ILOAD, frameBase + var.getSlot());
+			}
+		}
+		else if (exp instanceof BinOp)
+		{
+			BinOp binop = (BinOp) exp;
+			compile(binop.getExp1());
+			compile(binop.getExp2());
+			switch (binop.getOperator())
+			{
+				case PLUS:
+					m.op(ClassFileWriter.IADD, -1);
+					break;
+				case MINUS:
+					m.op(ClassFileWriter.ISUB, -1);
+					break;
+				case TIMES:
+					m.op(ClassFileWriter.IMUL, -1);
+					break;
+				case DIVIDE:
+					m.op(ClassFileWriter.IDIV, -1);
+					break;
+				case MOD:
+					m.op(ClassFileWriter.IREM, -1);
+					break;
+			}
+		}
+		else if (exp instanceof ProcedureCall)
+		{
+			ProcedureCall pc = (ProcedureCall) exp;
+			for (Expression arg: pc.getParams())
+			{
+				compile(arg);
+			}
+			ProcedureDeclaration dec = pc.getDeclaration();
+			m.invoke(ClassFileWriter.INVOKESTATIC, CLASS_NAME, methodNames.get(dec), descriptor(dec));
+		}
+	}
+}
@@ -0,0 +1,433 @@
+package ast;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import environment.Environment;
+
+/**
+ * A ClosureCompiler is a faster alternative to the Evaluator. Instead of
+ * walking the abstract syntax tree every time a Statement is executed, it
+ * converts each node once into a small Java closure that already knows what
+ * to do: which operator to apply, which slot a variable lives in, and which
+ * closures compute its operands. Running a Program is then just a matter of
+ * calling the closure for its main Statement, with no dispatch on node
+ * classes, operator strings or variable names along the way.
+ * 
+ * Variables use the same slots as in the Evaluator (see SlotResolver). Each
+ * closure takes the int array of slots of the procedure call that it runs in,
+ * while global variables are read from the global Environment's slots, which
+ * are captured when the closures are built. WRITELN output is the same as
+ * the Evaluator's. The frames of procedure calls are kept on a stack and
+ * reused by later calls at the same depth, so a ClosureCompiler's closures
+ * should only be run by one thread at a time.
+ * 
+ * Usage:
+ * new ClosureCompiler(env).exec(program);
+ * 
+ * @author Ashwin Rammohan
+ * @version October 17, 2026
+ *
+ */
+public class ClosureCompiler
+{
+	/**
+	 * A Statement that has been compiled to a closure.
+	 */
+	public static interface CompiledStatement
+	{
+		/**
+		 * Executes the Statement.
+		 * 
+		 * @param frame the slots of the current procedure call
+		 */
+		public void exec(int[] frame);
+	}
+	
+	/**
+	 * An Expression that has been compiled to a closure.
+	 */
+	public static interface CompiledExpression
+	{
+		/**
+		 * Evaluates the Expression.
+		 * 
+		 * @param frame the slots of the current procedure call
+		 * @return the numerical value of the Expression
+		 */
+		public int eval(int[] frame);
+	}
+	
+	/**
+	 * A Condition that has been compiled to a closure.
+	 */
+	public static interface CompiledCondition
+	{
+		/**
+		 * Checks whether the Condition is true.
+		 * 
+		 * @param frame the slots of the current procedure call
+		 * @return true if the condition is true; otherwise, false
+		 */
+		public boolean test(int[] frame);
+	}
+	
+	/**
+	 * A ProcedureDeclaration that has been compiled to a closure, along with
+	 * the layout of its frame.
+	 */
+	public static class CompiledProcedure
+	{
+		private final int frameSize;
+		private final int returnSlot;
+		private final int[] paramSlots;
+		private CompiledStatement body;
+		
+		/**
+		 * Creates a CompiledProcedure with the frame layout of a resolved
+		 * ProcedureDeclaration. The body is compiled separately, so that
+		 * recursive calls can refer to the procedure before it is finished.
+		 * 
+		 * @param dec the ProcedureDeclaration
+		 */
+		private CompiledProcedure(ProcedureDeclaration dec)
+		{
+			frameSize = dec.getFrameSize();
+			returnSlot = dec.getReturnSlot();
+			List<Expression> params = dec.getParams();
+			paramSlots = new int[params.size()];
+			for (int i = 0; i < paramSlots.length; i ++)
+			{
+				paramSlots[i] = ((Variable) params.get(i)).getSlot();
+			}
+		}
+		
+		/**
+		 * Retrieves the number of slots in a frame of the procedure.
+		 * 
+		 * @return the number of slots
+		 */
+		public int getFrameSize()
+		{
+			return frameSize;
+		}
+		
+		/**
+		 * Retrieves the slot of the i-th parameter of the procedure.
+		 * 
+		 * @param i the index of the parameter
+		 * @return the slot of the parameter
+		 */
+		public int getParamSlot(int i)
+		{
+			return paramSlots[i];
+		}
+		
+		/**
+		 * Runs the procedure in a frame whose parameters have already been
+		 * set, and returns the value of its return slot.
+		 * 
+		 * @param frame the frame of the call
+		 * @return the value that the procedure returns
+		 */
+		public int call(int[] frame)
+		{
+			body.exec(frame);
+			return frame[returnSlot];
+		}
+	}
+	
+	private Environment env;
+	private Map<ProcedureDeclaration, CompiledProcedure> procedures;
+	private int[][] frames;
+	private int depth;
+	
+	/**
+	 * Creates a new ClosureCompiler whose global variables are kept in the
+	 * slots of an Environment's global Environment.
+	 * 
+	 * @param environment the Environment that holds the global variables
+	 */
+	public ClosureCompiler(Environment environment)
+	{
+		env = environment;
+		procedures = new HashMap<ProcedureDeclaration, CompiledProcedure>();
+		frames = new int[16][];
+	}
+	
+	/**
+	 * Takes the next frame from the stack of procedure frames, reusing the
+	 * one left there by an earlier call at the same depth. The frame's first
+	 * slots are set to 0.
+	 * 
+	 * @param size the number of slots that the frame needs
+	 * @return the frame
+	 */
+	private int[] pushFrame(int size)
+	{
+		if (depth == frames.length)
+		{
+			frames = Arrays.copyOf(frames, depth * 2);
+		}
+		int[] frame = frames[depth];
+		if (frame == null || frame.length < size)
+		{
+			frame = new int[size];
+			frames[depth] = frame;
+		}
+		else
+		{
+			Arrays.fill(frame, 0, size, 0);
+		}
+		depth ++;
+		return frame;
+	}
+	
+	/**
+	 * Executes a Program. The Program's variables are resolved to slots,
+	 * its main Statement (and every procedure that it calls) is compiled,
+	 * and then the compiled Statement is run.
+	 * 
+	 * @param program the Program to be executed
+	 */
+	public void exec(Program program)
+	{
+		new SlotResolver().resolve(program, env);
+		depth = 0;
+		compile(program.getStatement()).exec(new int[0]);
+	}
+	
+	/**
+	 * Compiles a resolved ProcedureDeclaration, or retrieves it if it has
+	 * already been compiled.
+	 * 
+	 * @param dec the ProcedureDeclaration
+	 * @return the compiled procedure
+	 */
+	public CompiledProcedure compile(ProcedureDeclaration dec)
+	{
+		CompiledProcedure proc = procedures.get(dec);
+		if (proc == null)
+		{
+			proc = new CompiledProcedure(dec);
+			procedures.put(dec, proc);
+			proc.body = compile(dec.getStatement());
+		}
+		return proc;
+	}
+	
+	/**
+	 * Compiles a resolved Statement into a closure.
+	 * 
+	 * @param stmt the Statement
+	 * @return the compiled Statement
+	 */
+	public CompiledStatement compile(Statement stmt)
+	{
+		if (stmt instanceof Writeln)
+		{
+			CompiledExpression exp = compile(((Writeln) stmt).getExpression());
+			return frame -> System.out.println(exp.eval(frame));
+		}
+		else if (stmt instanceof Assignment)
+		{
+			Assignment a = (Assignment) stmt;
+			CompiledExpression exp = compile(a.getExpression());
+			int slot = a.getSlot();
+			if (a.isGlobal())
+			{
+				int[] globals = env.getGlobalSlots();
+				return frame -> globals[slot] = exp.eval(frame);
+			}
+			return frame -> frame[slot] = exp.eval(frame);
+		}
+		else if (stmt instanceof Block)
+		{
+			List<Statement> stmts = ((Block) stmt).getStatements();
+			CompiledStatement[] body = new CompiledStatement[stmts.size()];
+			for (int i = 0; i < body.length; i ++)
+			{
+				body[i] = compile(stmts.get(i));
+			}
+			if (body.length == 1)
+			{
+				return body[0];
+			}
+			return frame ->
+			{
+				for (CompiledStatement s: body)
+				{
+					s.exec(frame);
+				}
+			};
+		}
+		else if (stmt instanceof If)
+		{
+			If iff = (If) stmt;
+			CompiledCondition cond = compile(iff.getCond());
+			CompiledStatement then = compile(iff.getStmt());
+			return frame ->
+			{
+				if (cond.test(frame))
+				{
+					then.exec(frame);
+				}
+			};
+		}
+		else if (stmt instanceof While)
+		{
+			While wh = (While) stmt;
+			CompiledCondition cond = compile(wh.getCond());
+			CompiledStatement body = compile(wh.getStmt());
+			return frame ->
+			{
+				while (cond.test(frame))
+				{
+					body.exec(frame);
+				}
+			};
+		}
+		return frame -> { };
+	}
+	
+	/**
+	 * Compiles a resolved Condition into a closure that compares the values
+	 * of its two Expressions.
+	 * 
+	 * @param cond the Condition
+	 * @return the compiled Condition
+	 */
+	public CompiledCondition compile(Condition cond)
+	{
+		CompiledExpression exp1 = compile(cond.getExp1());
+		CompiledExpression exp2 = compile(cond.getExp2());
+		if (cond.getExp2() instanceof Number)
+		{
+			int value = ((Number) cond.getExp2()).getValue();
+			switch (cond.getRelopKind())
+			{
+				case LESS:
+					return frame -> exp1.eval(frame) < value;
+				case GREATER:
+					return frame -> exp1.eval(frame) > value;
+				case NOT_EQUAL:
+					return frame -> exp1.eval(frame) != value;
+				case GREATER_EQUAL:
+					return frame -> exp1.eval(frame) >= value;
+				case LESS_EQUAL:
+					return frame -> exp1.eval(frame) <= value;
+				case EQUAL:
+					return frame -> exp1.eval(frame) == value;
+				default:
+					break;
+			}
+		}
+		switch (cond.getRelopKind())
+		{
+			case LESS:
+				return frame -> exp1.eval(frame) < exp2.eval(frame);
+			case GREATER:
+				return frame -> exp1.eval(frame) > exp2.eval(frame);
+			case NOT_EQUAL:
+				return frame -> exp1.eval(frame) != exp2.eval(frame);
+			case GREATER_EQUAL:
+				return frame -> exp1.eval(frame) >= exp2.eval(frame);
+			case LESS_EQUAL:
+				return frame -> exp1.eval(frame) <= exp2.eval(frame);
+			case EQUAL:
+				return frame -> exp1.eval(frame) == exp2.eval(frame);
+			default:
+				return frame ->
+				{
+					exp1.eval(frame);
+					exp2.eval(frame);
+					return false;
+				};
+		}
+	}
+	
+	/**
+	 * Compiles a resolved Expression into a closure.
+	 * 
+	 * @param exp the Expression
+	 * @return the compiled Expression
+	 */
+	public CompiledExpression compile(Expression exp)
+	{
+		if (exp instanceof Number)
+		{
+			int value = ((Number) exp).getValue();
+			return frame -> value;
+		}
+		else if (exp instanceof Variable)
+		{
+			Variable var = (Variable) exp;
+			int slot = var.getSlot();
+			if (var.isGlobal())
+			{
+				int[] globals = env.getGlobalSlots();
+				return frame -> globals[slot];
+			}
+			return frame -> frame[slot];
+		}
+		else if (exp instanceof BinOp)
+		{
+			BinOp binop = (BinOp) exp;
+			CompiledExpression exp1 = compile(binop.getExp1());
+			CompiledExpression exp2 = compile(binop.getExp2());
+			if (binop.getExp2() instanceof Number)
+			{
+				int value = ((Number) binop.getExp2()).getValue();
+				switch (binop.getOperator())
+				{
+					case PLUS:
+						return frame -> exp1.eval(frame) + value;
+					case MINUS:
+						return frame -> exp1.eval(frame) - value;
+					case TIMES:
+						return frame -> exp1.eval(frame) * value;
+					default:
+						break;
+				}
+			}
+			switch (binop.getOperator())
+			{
+				case PLUS:
+					return frame -> exp1.eval(frame) + exp2.eval(frame);
+				case MINUS:
+					return frame -> exp1.eval(frame) - exp2.eval(frame);
+				case TIMES:
+					return frame -> exp1.eval(frame) * exp2.eval(frame);
+				case DIVIDE:
+					return frame -> exp1.eval(frame) / exp2.eval(frame);
+				case MOD:
+					return frame -> exp1.eval(frame) % exp2.eval(frame);
+			}
+		}
+		else if (exp instanceof ProcedureCall)
+		{
+			ProcedureCall pc = (ProcedureCall) exp;
+			CompiledProcedure proc = compile(pc.getDeclaration());
+			List<Expression> params = pc.getParams();
+			CompiledExpression[] args = new CompiledExpression[params.size()];
+			for (int i = 0; i < args.length; i ++)
+			{
+				args[i] = compile(params.get(i));
+			}
+			return frame ->
+			{
+				int[] callee = pushFrame(proc.frameSize);
+				for (int i = 0; i < args.length; i ++)
+				{
+					callee[proc.paramSlots[i]] = args[i].eval(frame);
+				}
+				int value = proc.call(callee);
+				depth --;
+				return value;
+			};
+		}
+		return frame -> 0;
+	}
+}
@@ -1,11 +1,15 @@
 package ast;
 import emitter.Emitter;
+import emitter.Opcode;
+import scanner.Scanner;
 import scanner.Token;
 
 /**
  * A Condition consists of two Expressions related by a relational
  * operator. A Condition represents a boolean value, meaning 
- * that it is either true or false.
+ * that it is either true or false. The kind of the relational operator's
+ * token is kept so that evaluating the Condition can switch on it instead
+ * of comparing strings.
  * 
  * @author Ashwin Rammohan
  * @version October 12, 2017
@@ -15,6 +19,7 @@ public class Condition
 {
 	private Expression exp1;
 	private Token relop;
+	private Scanner.TOKEN_KIND relopKind;
 	private Expression exp2;
 	
 	/**
@@ -29,6 +34,7 @@ public class Condition
 	{
 		this.exp1 = exp1;
 		this.relop = relop;
+		relopKind = relop.getKind();
 		this.exp2 = exp2;
 	}
 	
@@ -69,6 +75,28 @@ public class Condition
 	public void setRelop(Token reloperator) 
 	{
 		relop = reloperator;
+		relopKind = reloperator.getKind();
+	}
+	
+	/**
+	 * Determines whether either Expression of the Condition calls a procedure.
+	 * 
+	 * @return true if either Expression contains a ProcedureCall; otherwise, false
+	 */
+	public boolean hasCall()
+	{
+		return exp1.hasCall() || exp2.hasCall();
+	}
+	
+	/**
+	 * Retrieves the kind of the relational operator's token, such as
+	 * LESS or NOT_EQUAL.
+	 * 
+	 * @return the kind of the relational operator
+	 */
+	public Scanner.TOKEN_KIND getRelopKind()
+	{
+		return relopKind;
 	}
 	
 	/**
@@ -92,12 +120,10 @@ public class Condition
 	}
 	
 	/**
-	 * Compiles Conditions by first compiling the first
-	 * Expression. The value of this Expression is then
-	 * pushed onto the stack. Then, the second Expression
-	 * is compiled, leaving its value in $v0. The value of
-	 * the first Expression is popped off of the stack and
-	 * loaded into $t0. Then, based on the value of the
+	 * Compiles Conditions by first compiling both
+	 * Expressions into registers (a second Expression that
+	 * is the Number 0 is compared against $zero instead).
+	 * Then, based on the value of the
 	 * relational operator, the values stored in the
 	 * two registers are compared with the opposite
 	 * relational operator (if the operator in SIMPLE
@@ -107,35 +133,47 @@ public class Condition
 	 * endIf.
 	 *  
 	 * @param e the Emitter used to emit MIPS code
-	 * @param endIf the label that will be jumped to
+	 * @param endIf the symbol id of the label that will be jumped to
 	 * 		  if the initial condition (in the SIMPLE code)
 	 * 		  is not fulfilled
 	 */
-	public void compile(Emitter e, String endIf)
+	public void compile(Emitter e, int endIf)
 	{
-		exp1.compile(e);
-		e.emitPush("$v0");
-		exp2.compile(e);
-		e.emitPop("$t0");
-		switch (relop.getValue())
+		int reg1;
+		int reg2;
+		if (exp2 instanceof Number && ((Number) exp2).getValue() == 0)
+		{
+			reg1 = Emitter.register(0);
+			exp1.compile(e, reg1, 0);
+			reg2 = Emitter.ZERO;
+		}
+		else
+		{
+			int[] operands = Expression.compileOperands(e, exp1, exp2, 0);
+			reg1 = operands[0];
+			reg2 = operands[1];
+		}
+		switch (relopKind)
 		{
-			case ">":
-				e.emit("ble $t0, $v0," + endIf);
+			case GREATER:
+				e.emit(Opcode.BLE, reg1, reg2, endIf);
+				break;
+			case LESS:
+				e.emit(Opcode.BGE, reg1, reg2, endIf);
 				break;
-			case "<":
-				e.emit("bge $t0, $v0," + endIf);
+			case GREATER_EQUAL:
+				e.emit(Opcode.BLT, reg1, reg2, endIf);
 				break;
-			case ">=":
-				e.emit("blt $t0, $v0," + endIf);
+			case LESS_EQUAL:
+				e.emit(Opcode.BGT, reg1, reg2, endIf);
 				break;
-			case "<=":
-				e.emit("bgt $t0, $v0," + endIf);
+			case NOT_EQUAL:
+				e.emit(Opcode.BEQ, reg1, reg2, endIf);
 				break;
-			case "<>":
-				e.emit("beq $t0, $v0," +  endIf);
+			case EQUAL:
+				e.emit(Opcode.BNE, reg1, reg2, endIf);
 				break;
-			case "=":
-				e.emit("bne $t0, $v0," + endIf);
+			default:
 				break;
 		}
 	}
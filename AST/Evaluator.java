@@ -1,24 +1,49 @@
 package ast;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.stream.Collectors;
 
 import emitter.Emitter;
+import emitter.Opcode;
 import environment.Environment;
-import scanner.Token;
+import scanner.Scanner;
 
 /**
  * An Evaluator evaluates Statements and Expressions
  * by calculating their numerical values.
  * 
+ * Before a Program is executed, a SlotResolver gives each of its variables
+ * a slot, so Statements and Expressions must be executed as part of a
+ * Program that has been passed to exec(Program, Environment).
+ * 
+ * Execution is tiered: the Evaluator counts the calls to each procedure,
+ * and once a procedure has been called more times than the compile
+ * threshold, it is compiled by a ClosureCompiler. The compiled form is kept
+ * on the ProcedureDeclaration, and every later call runs it directly
+ * instead of walking the procedure's Statement again.
+ * 
+ * The Environments of procedure calls are kept on a stack and reused by
+ * later calls at the same depth, so calling a procedure does not allocate
+ * once the stack has grown deep enough.
+ * 
  * @author Ashwin Rammohan
  * @version October 26, 2017
  *
  */
 public class Evaluator 
 {
+	/**
+	 * The default number of calls after which a procedure is compiled.
+	 */
+	public static final int COMPILE_THRESHOLD = 1000;
+	
 	private Environment env;
+	private ClosureCompiler compiler;
+	private int compileThreshold;
+	private Environment[] frames;
+	private int depth;
 	
 	/**
 	 * Creates a new Evaluator with a certain Environment.
@@ -29,6 +54,20 @@ public class Evaluator
 	public Evaluator(Environment environment)
 	{
 		env = environment;
+		compileThreshold = COMPILE_THRESHOLD;
+		frames = new Environment[16];
+	}
+	
+	/**
+	 * Sets the number of times that a procedure is interpreted before it is
+	 * compiled. A threshold of 0 compiles every procedure when it is first
+	 * called, and Integer.MAX_VALUE turns compilation off.
+	 * 
+	 * @param calls the new compile threshold
+	 */
+	public void setCompileThreshold(int calls)
+	{
+		compileThreshold = calls;
 	}
 	
 	/**
@@ -38,46 +77,89 @@ public class Evaluator
 	 * are obtained from the Program's list of variables. Then, the
 	 * main statement in the Program is compiled and this MIPS output
 	 * is placed in the .text section. After the statement has been compiled,
-	 * a new line is printed and the program is halted.
+	 * a new line is printed and the program is halted. The code is passed
+	 * through the Emitter's peephole passes before it is written.
+	 * 
+	 * The ProcedureDeclarations are compiled in parallel on the common
+	 * ForkJoinPool, each into an Emitter of its own with its own labels, and
+	 * their code is then appended in the order in which they were declared,
+	 * so the output is the same however the work was scheduled.
 	 * 
 	 * @param fileName the location of the output file with the MIPS code
 	 * @param pr the Program to be compiled
+	 * @return the number of instructions removed by each peephole pass
+	 */
+	public Map<String, Integer> compile(String fileName, Program pr)
+	{
+		return compile(new Emitter(fileName), pr);
+	}
+	
+	/**
+	 * Compiles a Program with a given Emitter, which is closed afterwards,
+	 * so that the MIPS code can be written somewhere other than a file
+	 * named by the caller. If compiling fails, the Emitter is not closed,
+	 * and an Emitter for a file never creates it.
+	 * 
+	 * @param e the Emitter that the MIPS code is emitted to
+	 * @param pr the Program to be compiled
+	 * @return the number of instructions removed by each peephole pass
 	 */
-	public void compile(String fileName, Program pr)
+	public Map<String, Integer> compile(Emitter e, Program pr)
 	{
-		Emitter e = new Emitter(fileName);
-		e.emit(".data");
-		e.emit("newline: .asciiz \"\\n\" ");
+		e.emit(Opcode.DATA);
+		e.emit(Opcode.ASCIIZ, e.symbol("newline"), e.string("\\n"));
 		for (String s: pr.getVariables())
 		{
-			e.emit(s + ": .word 0");
+			e.emit(Opcode.WORD, e.symbol(s), 0);
 		}
-		e.emit(".text");
-		e.emit(".globl main");
-		e.emit("main:");
+		e.emit(Opcode.TEXT);
+		e.emit(Opcode.GLOBL, e.symbol("main"));
+		e.emit(Opcode.LABEL, e.symbol("main"));
 		pr.compile(e);
-		e.emit("la $a0, newline");
-		e.emit("li $v0, 4");
-		e.emit("syscall");
-		e.emit("li $v0, 10");
-		e.emit("syscall #halt");
+		e.emit(Opcode.LA_SYM, Emitter.A0, e.symbol("newline"));
+		e.emit(Opcode.LI, Emitter.V0, 4);
+		e.emit(Opcode.SYSCALL);
+		e.emit(Opcode.LI, Emitter.V0, 10);
+		e.emit(Opcode.SYSCALL); //halt
 		
-		for (ProcedureDeclaration pd: pr.getProcedures())
+		List<Emitter> procedures = pr.getProcedures().parallelStream()
+				.map(Evaluator::compileProcedure).collect(Collectors.toList());
+		for (Emitter pe: procedures)
 		{
-			pd.compile(e);
+			e.append(pe);
 		}
+		e.close();
+		return e.getPeepholeOptimizer().getRemoved();
 	}
 	
 	/**
-	 * Executes a Program by executing each of its ProcedureDeclarations
-	 * (if any) from its list of ProcedureDeclarations and then finally
-	 * executes the Statement at the end of the Program.
+	 * Compiles a ProcedureDeclaration into an Emitter of its own.
+	 * 
+	 * @param pd the ProcedureDeclaration to be compiled
+	 * @return the Emitter holding the procedure's code
+	 */
+	private static Emitter compileProcedure(ProcedureDeclaration pd)
+	{
+		Emitter e = Emitter.forProcedure(pd);
+		pd.compile(e);
+		return e;
+	}
+	
+	/**
+	 * Executes a Program. First, the Program's variables are resolved to
+	 * slots and the global Environment is given a slot for each global
+	 * variable. Then, each of its ProcedureDeclarations (if any) from its
+	 * list of ProcedureDeclarations is executed, and then finally
+	 * the Statement at the end of the Program is executed.
 	 * 
 	 * @param program the Program to be executed
 	 * @param env the Environment where the Program is supposed to be executed
 	 */
 	public void exec(Program program, Environment env)
 	{
+		new SlotResolver().resolve(program, env);
+		compiler = new ClosureCompiler(env);
+		depth = 0;
 		List<ProcedureDeclaration> procedures = program.getProcedures();
 		for (ProcedureDeclaration pd: procedures)
 		{
@@ -89,39 +171,16 @@ public class Evaluator
 	
 	
 	/**
-	 * This is the general method for executing statements. This method
-	 * determines what kind of Statement the statement is, and based on that,
-	 * it will call the appropriate exec method. 
+	 * This is the general method for executing statements. The Statement
+	 * calls back the exec method for its own kind of Statement, so the
+	 * right method is found with a single virtual call.
 	 * 
 	 * @param stmt the Statement that should be executed
 	 * @param env the Environment where the execution happens
 	 */
 	public void exec(Statement stmt, Environment env)
 	{
-		if (stmt instanceof Writeln)
-		{
-			exec((Writeln)stmt, env);
-		}
-		else if (stmt instanceof Assignment)
-		{
-			exec((Assignment)stmt, env);
-		}
-		else if (stmt instanceof Block)
-		{
-			exec((Block)stmt, env);
-		}
-		else if (stmt instanceof If)
-		{
-			exec((If)stmt, env);
-		}
-		else if (stmt instanceof While)
-		{
-			exec((While)stmt, env);
-		}
-		else if (stmt instanceof ProcedureDeclaration)
-		{
-			exec((ProcedureDeclaration)stmt, env);
-		}
+		stmt.exec(this, env);
 	}
 	
 	/**
@@ -137,20 +196,24 @@ public class Evaluator
 	}
 
 	/**
-	 * Executes an ASSIGNMENT statement by modifying the value associated
-	 * with a certain variable in the Environment's Map. If the variable does
-	 * not already exist in the Environment's Map, then a new variable with
-	 * the variable name is added to the map, with its value being
-	 * the value of the expression in the ASSIGNMENT.
+	 * Executes an ASSIGNMENT statement by storing the value of its
+	 * expression in the variable's slot, which is either in the global
+	 * Environment or in the current procedure's Environment.
 	 * 
-	 * @param stmt the ASSIGNMENT statement
+	 * @param a the ASSIGNMENT statement
 	 * @param env the Environment where the execution happens
 	 */
 	public void exec(Assignment a, Environment env)
 	{
-		Expression exp = a.getExpression();
-		String varName = a.getVar();
-		env.setVariable(varName, eval(exp,env));
+		int value = eval(a.getExpression(), env);
+		if (a.isGlobal())
+		{
+			env.getGlobalSlots()[a.getSlot()] = value;
+		}
+		else
+		{
+			env.getSlots()[a.getSlot()] = value;
+		}
 	}
 	
 	/**
@@ -177,41 +240,43 @@ public class Evaluator
 	 * 
 	 * @param val the first integer value
 	 * @param val2 the second integer value
-	 * @param relop the relational operator
+	 * @param relop the kind of the relational operator
 	 * 
 	 * @return true if the condition is true; otherwise, false
 	 */
-	public boolean checkCondition(int val, int val2, String relop)
+	public boolean checkCondition(int val, int val2, Scanner.TOKEN_KIND relop)
 	{
-		boolean bool = false;
 		switch(relop)
 		{
-		case "<":
-			if (val < val2)
-				bool = true;
-			break;
-		case ">":
-			if (val > val2)
-				bool = true;
-			break;
-		case "<>":
-			if (val != val2)
-				bool = true;
-			break;
-		case ">=":
-			if (val >= val2)
-				bool = true;
-			break;
-		case "<=":
-			if (val <= val2)
-				bool = true;
-			break;
-		case "=":
-			if (val == val2)
-				bool = true;
-			break;
+		case LESS:
+			return val < val2;
+		case GREATER:
+			return val > val2;
+		case NOT_EQUAL:
+			return val != val2;
+		case GREATER_EQUAL:
+			return val >= val2;
+		case LESS_EQUAL:
+			return val <= val2;
+		case EQUAL:
+			return val == val2;
+		default:
+			return false;
 		}
-		return bool;
+	}
+	
+	/**
+	 * Evaluates both sides of a Condition and checks whether the
+	 * Condition is true.
+	 * 
+	 * @param cond the Condition
+	 * @param env the Environment where the Condition is evaluated
+	 * @return true if the condition is true; otherwise, false
+	 */
+	private boolean test(Condition cond, Environment env)
+	{
+		return checkCondition(cond.getExp1().eval(this, env), cond.getExp2().eval(this, env),
+				cond.getRelopKind());
 	}
 	/**
 	 * Executes an IF statement by checking whether the condition
@@ -225,18 +290,9 @@ public class Evaluator
 	 */
 	public void exec(If iff, Environment env)
 	{
-		Condition cond = iff.getCond();
-		Statement stmt = iff.getStmt();
-		Expression exp1 = cond.getExp1();
-		Token relop = cond.getRelop();
-		Expression exp2 = cond.getExp2();
-		String relopStr = relop.getValue();
-		int exp1_value = eval(exp1, env);
-		int exp2_value = eval(exp2, env);
-		
-		if (checkCondition(exp1_value, exp2_value,relopStr))
+		if (test(iff.getCond(), env))
 		{
-			exec(stmt, env);
+			iff.getStmt().exec(this, env);
 		}
 	}
 	
@@ -254,18 +310,9 @@ public class Evaluator
 	{
 		Condition cond = wh.getCond();
 		Statement stmt = wh.getStmt();
-		Expression exp1 = cond.getExp1();
-		Token relop = cond.getRelop();
-		Expression exp2 = cond.getExp2();
-		String relopStr = relop.getValue();
-		int exp1_value = eval(exp1, env);
-		int exp2_value = eval(exp2, env);
-		
-		while (checkCondition(exp1_value, exp2_value, relopStr))
+		while (test(cond, env))
 		{
-			exec(stmt, env);
-			exp1_value = eval(exp1, env);
-			exp2_value = eval(exp2, env);
+			stmt.exec(this, env);
 		}
 	}
 	
@@ -283,9 +330,9 @@ public class Evaluator
 	}
 	
 	/**
-	 * This is the general method for evaluating expressions. This method
-	 * determines what kind of Expression the expression is, and based on that,
-	 * it will call the appropriate eval method. 
+	 * This is the general method for evaluating expressions. The Expression
+	 * calls back the eval method for its own kind of Expression, so the
+	 * right method is found with a single virtual call.
 	 * 
 	 * @param exp the Expression that is supposed to be evaluated
 	 * @param env the Environment where the execution of the Expression
@@ -294,23 +341,7 @@ public class Evaluator
 	 */
 	public int eval(Expression exp, Environment env)
 	{
-		if (exp instanceof Number)
-		{
-			return eval((Number)exp, env);
-		}
-		else if (exp instanceof BinOp)
-		{
-			return eval((BinOp)exp, env);
-		}
-		else if (exp instanceof Variable)
-		{
-			return eval((Variable)exp, env);
-		}
-		else if (exp instanceof ProcedureCall)
-		{
-			return eval((ProcedureCall)exp, env);
-		}
-		return 0;
+		return exp.eval(this, env);
 	}
 	
 	/**
@@ -325,22 +356,21 @@ public class Evaluator
 	 */
 	public int eval(BinOp binop, Environment env) 
 	{
-		String operand = binop.getOp();
-		Expression exp1 = binop.getExp1();
-		Expression exp2 = binop.getExp2();
+		int val1 = binop.getExp1().eval(this, env);
+		int val2 = binop.getExp2().eval(this, env);
 		
-		switch(operand)
+		switch(binop.getOperator())
 		{
-		case ("+"):
-			return eval(exp1, env) + eval(exp2, env);
-		case ("-"):
-			return eval(exp1, env) - eval(exp2, env);
-		case ("*"):
-			return eval(exp1, env) * eval(exp2, env);
-		case ("/"):
-			return eval(exp1, env) / eval(exp2, env);
-		case ("mod"):
-			return eval(exp1, env) % eval(exp2, env);
+		case PLUS:
+			return val1 + val2;
+		case MINUS:
+			return val1 - val2;
+		case TIMES:
+			return val1 * val2;
+		case DIVIDE:
+			return val1 / val2;
+		case MOD:
+			return val1 % val2;
 		default:
 			return 0;
 		}
@@ -361,10 +391,9 @@ public class Evaluator
 	}
 	
 	/**
-	 * Evaluates Variables by calling an Environment's 
-	 * getVariable() method, which will retrieve the variable's
-	 * value if it is stored in the Environment's Map, or otherwise,
-	 * it will look at it's parent Environment's Map to retrieve the value.
+	 * Evaluates Variables by reading the variable's slot, which is
+	 * either in the global Environment or in the current procedure's
+	 * Environment.
 	 * 
 	 * @param var the Variable that is being evaluated
 	 * @param env the Environment where the execution of the Variable
@@ -373,23 +402,26 @@ public class Evaluator
 	 */
 	public int eval(Variable var, Environment env)
 	{
-		return env.getVariable(var.getName());
+		if (var.isGlobal())
+		{
+			return env.getGlobalSlots()[var.getSlot()];
+		}
+		return env.getSlots()[var.getSlot()];
 	}
 	
 	/**
-	 * Evaluates a ProcedureCall. Creates a separate
-	 * child environment (whose parent is the current
-	 * Environment) for the ProcedureCall. First, a variable with
-	 * the same name as the ProcedureCall is initialized in the child
-	 * Environment, and its value is set to 0 (this will be used
-	 * for return values). If the ProcedureDeclaration is meant to 
-	 * return a value, the value of this variable will be changed; otherwise,
-	 * the evaluation of the ProcedureCall will always return 0. Then,
-	 * the child Environment's setVariable method is used to map the values of
-	 * params in the ProcedureCall to the values of the Variable parameters in the
-	 * initial ProcedureDeclaration. Finally, the Statement at the end of the ProcedureDeclaration
-	 * that corresponds to this ProcedureCall is executed. Finally, the value of the
-	 * variable with the same name as the ProcedureCall is returned.
+	 * Evaluates a ProcedureCall. First, a child Environment (whose parent is
+	 * the global Environment) is taken from the frame stack, with a slot for
+	 * each of the procedure's parameters, its return value and its local
+	 * variables, all set to 0. If the procedure has been compiled, its
+	 * arguments are evaluated into the frame and the compiled form is run.
+	 * Otherwise, the call is counted (compiling the procedure if it has
+	 * become hot) and interpreted. The arguments of the ProcedureCall are evaluated in the
+	 * caller's Environment and stored in the slots of the parameters. Then,
+	 * the Statement of the ProcedureDeclaration that corresponds to this
+	 * ProcedureCall is executed. Finally, the value of the variable with
+	 * the same name as the procedure is returned; if the procedure never
+	 * assigns it, the ProcedureCall evaluates to 0.
 	 * 
 	 * @param pc the ProcedureCall that is to be evaluated
 	 * @param env the current Environment
@@ -397,20 +429,69 @@ public class Evaluator
 	 */
 	public int eval(ProcedureCall pc, Environment env)
 	{
-		String pd = pc.getProcedure();
-		Environment child = new Environment(env);
-		child.declareVariable(pd, 0);
-		ProcedureDeclaration dec = child.getProcedure(pd);
-		List<Expression> decParams = dec.getParams();
+		ProcedureDeclaration dec = pc.getDeclaration();
 		List<Expression> callParams = pc.getParams();
-		for (int i = 0; i < callParams.size(); i ++)
+		ClosureCompiler.CompiledProcedure compiled = dec.getCompiled();
+		if (compiled == null && dec.countCall() > compileThreshold)
 		{
-			String varName = ((Variable)decParams.get(i)).getName();
-			Expression exp = callParams.get(i);
-			child.setVariable(varName, eval(exp, child));
-
+			compiled = compiler.compile(dec);
+			dec.setCompiled(compiled);
+		}
+		Environment child = pushFrame(env.getGlobal(), dec.getFrameSize());
+		int[] slots = child.getSlots();
+		int value;
+		if (compiled != null)
+		{
+			for (int i = 0; i < callParams.size(); i ++)
+			{
+				slots[compiled.getParamSlot(i)] = eval(callParams.get(i), env);
+			}
+			value = compiled.call(slots);
+		}
+		else
+		{
+			List<Expression> decParams = dec.getParams();
+			for (int i = 0; i < callParams.size(); i ++)
+			{
+				slots[((Variable) decParams.get(i)).getSlot()] = eval(callParams.get(i), env);
+			}
+			exec(dec.getStatement(), child);
+			value = slots[dec.getReturnSlot()];
+		}
+		depth --;
+		return value;
+	}
+	
+	/**
+	 * Takes the next Environment from the stack of procedure frames, reusing
+	 * the one left there by an earlier call at the same depth if it belongs
+	 * to the same global Environment. The frame's first slots are set to 0.
+	 * 
+	 * @param global the global Environment, which is the frame's parent
+	 * @param size the number of slots that the frame needs
+	 * @return the frame
+	 */
+	private Environment pushFrame(Environment global, int size)
+	{
+		if (depth == frames.length)
+		{
+			frames = Arrays.copyOf(frames, depth * 2);
+		}
+		Environment frame = frames[depth];
+		if (frame == null || frame.getParent() != global)
+		{
+			frame = new Environment(global, size);
+			frames[depth] = frame;
+		}
+		else if (frame.getSlots().length < size)
+		{
+			frame.setSlots(new int[size]);
+		}
+		else
+		{
+			Arrays.fill(frame.getSlots(), 0, size, 0);
 		}
-		exec(dec.getStatement(), child);
-		return child.getVariable(pd);
+		depth ++;
+		return frame;
 	}
 }
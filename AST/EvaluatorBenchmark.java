@@ -0,0 +1,222 @@
+package ast;
+
+import java.io.ByteArrayInputStream;
+
+import environment.Environment;
+import parser.Parser;
+import scanner.ScanErrorException;
+import scanner.Scanner;
+import scanner.ScannerBenchmark;
+
+/**
+ * The EvaluatorBenchmark measures how long the Evaluator (with and without
+ * compiling hot procedures), the ClosureCompiler and the BytecodeCompiler
+ * take to run tight WHILE loops, one that only does arithmetic on global
+ * variables and one that also calls a procedure on every iteration, and the
+ * recursive Fibonacci and Ackermann functions. Each program is parsed once and then executed several
+ * times, after a few warm-up rounds, so that only execution is timed. The
+ * bytes allocated by the timed rounds are reported along with the time.
+ * 
+ * Usage: java ast.EvaluatorBenchmark [iterations] [rounds] [fibonacciN]
+ * 
+ * @author Ashwin Rammohan
+ * @version October 17, 2026
+ *
+ */
+public class EvaluatorBenchmark
+{
+	/**
+	 * Creates the source of a program whose main statement is a WHILE loop
+	 * that runs a given number of times.
+	 * 
+	 * @param iterations the number of times the loop runs
+	 * @param calls whether the loop body calls a procedure
+	 * @return the source of the program
+	 */
+	public static String generateProgram(int iterations, boolean calls)
+	{
+		String update = calls ? "s := step(s, i);" : "s := (s * 31 + i) mod 1000003;";
+		return "VAR i, s;\n"
+				+ "PROCEDURE step(a, b);\n"
+				+ "step := (a * 31 + b) mod 1000003;\n"
+				+ "BEGIN\n"
+				+ "  i := 0;\n"
+				+ "  s := 0;\n"
+				+ "  WHILE i < " + iterations + " DO\n"
+				+ "  BEGIN\n"
+				+ "    " + update + "\n"
+				+ "    IF s > 500000 THEN s := s - 1000;\n"
+				+ "    i := i + 1;\n"
+				+ "  END;\n"
+				+ "END;\n"
+				+ ".\n";
+	}
+	
+	/**
+	 * Creates the source of a program that computes a Fibonacci number with
+	 * a doubly recursive procedure.
+	 * 
+	 * @param n the index of the Fibonacci number
+	 * @return the source of the program
+	 */
+	public static String generateFibonacciProgram(int n)
+	{
+		return "VAR r;\n"
+				+ "PROCEDURE fib(n);\n"
+				+ "BEGIN\n"
+				+ "  IF n < 2 THEN fib := n;\n"
+				+ "  IF n >= 2 THEN fib := fib(n - 1) + fib(n - 2);\n"
+				+ "END;\n"
+				+ "BEGIN\n"
+				+ "  r := fib(" + n + ");\n"
+				+ "END;\n"
+				+ ".\n";
+	}
+	
+	/**
+	 * Creates the source of a program that computes the Ackermann function.
+	 * 
+	 * @param m the first argument of the function
+	 * @param n the second argument of the function
+	 * @return the source of the program
+	 */
+	public static String generateAckermannProgram(int m, int n)
+	{
+		return "VAR r;\n"
+				+ "PROCEDURE ack(m, n);\n"
+				+ "BEGIN\n"
+				+ "  IF m = 0 THEN ack := n + 1;\n"
+				+ "  IF m > 0 THEN IF n = 0 THEN ack := ack(m - 1, 1);\n"
+				+ "  IF m > 0 THEN IF n > 0 THEN ack := ack(m - 1, ack(m, n - 1));\n"
+				+ "END;\n"
+				+ "BEGIN\n"
+				+ "  r := ack(" + m + ", " + n + ");\n"
+				+ "END;\n"
+				+ ".\n";
+	}
+	
+	/**
+	 * Counts the calls made by the Ackermann program's procedure.
+	 * 
+	 * @param m the first argument of the function
+	 * @param n the second argument of the function
+	 * @return the number of calls to ack, in calls[0]; calls[1] holds the result
+	 */
+	private static int[] ackermannCalls(int m, int n)
+	{
+		if (m == 0)
+		{
+			return new int[] {1, n + 1};
+		}
+		if (n == 0)
+		{
+			int[] inner = ackermannCalls(m - 1, 1);
+			return new int[] {inner[0] + 1, inner[1]};
+		}
+		int[] first = ackermannCalls(m, n - 1);
+		int[] second = ackermannCalls(m - 1, first[1]);
+		return new int[] {first[0] + second[0] + 1, second[1]};
+	}
+	
+	/**
+	 * Counts the calls made by the Fibonacci program's procedure.
+	 * 
+	 * @param n the index of the Fibonacci number
+	 * @return the number of calls to fib
+	 */
+	private static int fibonacciCalls(int n)
+	{
+		int a = 1;
+		int b = 1;
+		for (int i = 1; i < n; i ++)
+		{
+			int c = a + b + 1;
+			a = b;
+			b = c;
+		}
+		return b;
+	}
+	
+	/**
+	 * Executes a program once, with a fresh global Environment.
+	 * 
+	 * @param program the Program to execute
+	 * @param tier "evaluator", "tiered", "closures" or "bytecode"
+	 */
+	private static void run(Program program, String tier)
+	{
+		Environment env = new Environment(null);
+		if (tier.equals("evaluator"))
+		{
+			Evaluator ev = new Evaluator(env);
+			ev.setCompileThreshold(Integer.MAX_VALUE);
+			ev.exec(program, env);
+		}
+		else if (tier.equals("closures"))
+		{
+			new ClosureCompiler(env).exec(program);
+		}
+		else if (tier.equals("bytecode"))
+		{
+			new BytecodeCompiler(env).exec(program);
+		}
+		else
+		{
+			new Evaluator(env).exec(program, env);
+		}
+	}
+	
+	/**
+	 * Times a number of rounds of executing a program, after a few warm-up
+	 * rounds, and prints the average time per round, and the time and bytes
+	 * allocated per loop iteration (or procedure call).
+	 * 
+	 * @param name the name of the workload
+	 * @param source the source of the program
+	 * @param iterations the number of loop iterations or calls in the program
+	 * @param rounds the number of timed rounds
+	 * @param tier "evaluator", "tiered", "closures" or "bytecode"
+	 * @throws ScanErrorException if the program cannot be parsed
+	 */
+	private static void time(String name, String source, int iterations, int rounds,
+			String tier) throws ScanErrorException
+	{
+		Program program = new Parser(new Scanner(new ByteArrayInputStream(source.getBytes())))
+				.parseProgram();
+		for (int i = 0; i < 3; i ++)
+		{
+			run(program, tier);
+		}
+		long allocated = ScannerBenchmark.allocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i ++)
+		{
+			run(program, tier);
+		}
+		double millis = (System.nanoTime() - start) / 1e6 / rounds;
+		allocated = ScannerBenchmark.allocatedBytes() - allocated;
+		System.out.printf("%-6s %-9s %8.1f ms per run, %6.1f ns and %6.1f bytes per iteration%n",
+				name, tier, millis, millis * 1e6 / iterations, (double) allocated / rounds / iterations);
+	}
+	
+	/**
+	 * Times the arithmetic loop, the loop with procedure calls and the
+	 * Fibonacci and Ackermann programs with each of the execution tiers.
+	 * 
+	 * @param args the optional iteration count, round count and Fibonacci index
+	 * @throws ScanErrorException if a generated program cannot be parsed
+	 */
+	public static void main(String[] args) throws ScanErrorException
+	{
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5000000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		int n = args.length > 2 ? Integer.parseInt(args[2]) : 25;
+		for (String tier: new String[] {"evaluator", "tiered", "closures", "bytecode"})
+		{
+			time("loop", generateProgram(iterations, false), iterations, rounds, tier);
+			time("calls", generateProgram(iterations, true), iterations, rounds, tier);
+			time("fib", generateFibonacciProgram(n), fibonacciCalls(n), rounds, tier);
+			time("ack", generateAckermannProgram(2, 400), ackermannCalls(2, 400)[0], rounds, tier);
+		}
+	}
+}
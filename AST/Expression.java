@@ -1,7 +1,9 @@
 package ast;
 
 import emitter.Emitter;
+import emitter.Opcode;
 import environment.Environment;
+import scanner.Token;
 
 /**
  * An Expression is an element in the input stream
@@ -11,12 +13,70 @@ import environment.Environment;
  * Numbers, and Variables. Expressions themselves can also
  * be added/subtracted/multiplied/divided together.
  * 
+ * Each Expression also records the position in the source code where it
+ * starts, as a line and column packed by Token.position(). The Parser sets
+ * the position; Expressions that are built by other means have position 0.
+ * 
  * @author Ashwin Rammohan
  * @version October 12, 2017
  *
  */
 public abstract class Expression
 {
+	private int position;
+	
+	/**
+	 * Retrieves the packed source position of this expression.
+	 * 
+	 * @return the packed position, or 0 if it is unknown
+	 */
+	public int getPosition()
+	{
+		return position;
+	}
+	
+	/**
+	 * Sets the packed source position of this expression.
+	 * 
+	 * @param pos the packed position, as made by Token.position()
+	 */
+	public void setPosition(int pos)
+	{
+		position = pos;
+	}
+	
+	/**
+	 * Retrieves the line on which this expression starts.
+	 * 
+	 * @return the line, or 0 if the position is unknown
+	 */
+	public int getLine()
+	{
+		return Token.lineOf(position);
+	}
+	
+	/**
+	 * Retrieves the column at which this expression starts.
+	 * 
+	 * @return the column, or 0 if the position is unknown
+	 */
+	public int getColumn()
+	{
+		return Token.columnOf(position);
+	}
+	
+	/**
+	 * Evaluates this Expression with an Evaluator. Each kind of Expression
+	 * calls the Evaluator's eval method for its own class, so evaluating
+	 * an Expression takes a single virtual call instead of a chain of
+	 * instanceof checks.
+	 * 
+	 * @param ev the Evaluator that evaluates the Expression
+	 * @param env the Environment where the evaluation happens
+	 * @return the numerical value of the Expression
+	 */
+	public abstract int eval(Evaluator ev, Environment env);
+	
 	/**
 	 * It is expected that all classes that implement Expression
 	 * override this method and have their own distinct
@@ -30,4 +90,87 @@ public abstract class Expression
 	{
 		throw new RuntimeException("Implement me!!!!!");
 	}
+	
+	/**
+	 * Compiles this Expression so that its value is left in a given register.
+	 * The registers numbered base and above (see Emitter.register) may be
+	 * used while computing it; the ones below base hold values that are still
+	 * needed. Expressions that have no better way to do this are compiled
+	 * into $v0 and then moved.
+	 * 
+	 * @param e the Emitter used to emit MIPS code
+	 * @param target the register that receives the value, which is either
+	 * 		  Emitter.register(base) or a register outside of that file
+	 * @param base the index of the first free register
+	 */
+	public void compile(Emitter e, int target, int base)
+	{
+		compile(e);
+		if (target != Emitter.V0)
+		{
+			e.emit(Opcode.MOVE, target, Emitter.V0);
+		}
+	}
+	
+	/**
+	 * Returns the number of registers needed to compute this Expression
+	 * without spilling to the stack (its Sethi-Ullman number).
+	 * 
+	 * @return the number of registers needed
+	 */
+	public int getRegisterNeed()
+	{
+		return 1;
+	}
+	
+	/**
+	 * Determines whether evaluating this Expression calls a procedure. A
+	 * procedure call may change globals and overwrites every register.
+	 * 
+	 * @return true if this Expression contains a ProcedureCall; otherwise, false
+	 */
+	public boolean hasCall()
+	{
+		return false;
+	}
+	
+	/**
+	 * Compiles the two operands of a binary operation into registers. The
+	 * operand that needs more registers is computed first when neither
+	 * operand calls a procedure, since then the order cannot be observed.
+	 * The first value is only spilled to the stack when the second operand
+	 * calls a procedure or no register is left for it.
+	 * 
+	 * @param e the Emitter used to emit MIPS code
+	 * @param exp1 the left operand
+	 * @param exp2 the right operand
+	 * @param base the index of the first free register
+	 * @return the registers holding the left and the right operand
+	 */
+	static int[] compileOperands(Emitter e, Expression exp1, Expression exp2, int base)
+	{
+		boolean swap = !exp1.hasCall() && !exp2.hasCall()
+				&& exp2.getRegisterNeed() > exp1.getRegisterNeed();
+		Expression first = swap ? exp2 : exp1;
+		Expression second = swap ? exp1 : exp2;
+		int reg = Emitter.register(base);
+		int firstReg;
+		int secondReg;
+		first.compile(e, reg, base);
+		if (second.hasCall() || base + 1 >= Emitter.REGISTERS)
+		{
+			e.emitPush(reg);
+			second.compile(e, reg, base);
+			e.emitPop(Emitter.V1);
+			firstReg = Emitter.V1;
+			secondReg = reg;
+		}
+		else
+		{
+			secondReg = Emitter.register(base + 1);
+			second.compile(e, secondReg, base + 1);
+			firstReg = reg;
+		}
+		return swap ? new int[] {secondReg, firstReg} : new int[] {firstReg, secondReg};
+	}
 }
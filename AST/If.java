@@ -1,6 +1,8 @@
 package ast;
 
 import emitter.Emitter;
+import emitter.Opcode;
+import environment.Environment;
 
 /**
  * An If Statement consists of a condition and a statement that
@@ -85,11 +87,32 @@ public class If extends Statement
 	 */
 	public void compile(Emitter e)
 	{
-		int i = e.nextLabelID();
-		cond.compile(e, "endIf" + i + "");
+		int endIf = e.newLabel("endIf");
+		cond.compile(e, endIf);
 		stmt.compile(e);
-		e.emit("endIf" + i + ":");
+		e.emit(Opcode.LABEL, endIf);
 	}
 	
+	/**
+	 * Determines whether the Condition or the Statement of the If calls a
+	 * procedure or makes a syscall.
+	 * 
+	 * @return true if either does; otherwise, false
+	 */
+	public boolean hasCall()
+	{
+		return cond.hasCall() || stmt.hasCall();
+	}
 	
+	/**
+	 * Executes the IF statement by passing it to the Evaluator's exec
+	 * method for Ifs.
+	 * 
+	 * @param ev the Evaluator that executes the IF statement
+	 * @param env the Environment where the execution happens
+	 */
+	public void exec(Evaluator ev, Environment env)
+	{
+		ev.exec(this, env);
+	}
 }
@@ -1,6 +1,8 @@
 package ast;
 
 import emitter.Emitter;
+import emitter.Opcode;
+import environment.Environment;
 
 /**
  * A Number is an element of the
@@ -54,6 +56,31 @@ public class Number extends Expression
 	 */
 	public void compile(Emitter e)
 	{
-		e.emit("li $v0, " + value);
+		compile(e, Emitter.V0, 0);
+	}
+	
+	/**
+	 * Compiles a Number by loading its value into a register.
+	 * 
+	 * @param e the Emitter used to emit MIPS code
+	 * @param target the register that receives the value
+	 * @param base the index of the first free register
+	 */
+	public void compile(Emitter e, int target, int base)
+	{
+		e.emit(Opcode.LI, target, value);
+	}
+	
+	/**
+	 * Evaluates the Number by passing it to the Evaluator's eval
+	 * method for Numbers.
+	 * 
+	 * @param ev the Evaluator that evaluates the Number
+	 * @param env the Environment where the evaluation happens
+	 * @return the numerical value of the Number
+	 */
+	public int eval(Evaluator ev, Environment env)
+	{
+		return ev.eval(this, env);
 	}
 }
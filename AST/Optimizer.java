@@ -0,0 +1,485 @@
+package ast;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An Optimizer simplifies the abstract syntax tree of a Program before it is
+ * executed or compiled, so that the Evaluator, the compilers and the MIPS
+ * Emitter all do less work at run time. It makes three kinds of changes:
+ * 
+ * Constant folding: a BinOp whose operands are both Numbers is replaced by
+ * its value (except for division by zero, which is left to fail at run time),
+ * and an IF or WHILE whose condition compares two Numbers is replaced by its
+ * statement or removed.
+ * 
+ * Algebraic simplification: x + 0, 0 + x, x - 0, x * 1, 1 * x and x / 1
+ * become x; x * -1 (which is how the Parser writes -x) becomes 0 - x; and
+ * x * 0 becomes 0 when evaluating x cannot call a procedure or divide.
+ * 
+ * Constant propagation: after an assignment of a constant, later reads of
+ * the variable in the same straight-line code are replaced by the constant.
+ * What is known is merged conservatively after IF statements and cleared for
+ * every variable assigned in a WHILE loop, and a procedure call forgets every
+ * global variable, since the procedure may assign it.
+ * 
+ * Usage:
+ * new Optimizer().optimize(program);
+ * 
+ * @author Ashwin Rammohan
+ * @version October 17, 2026
+ *
+ */
+public class Optimizer
+{
+	private Set<String> frameNames;
+	
+	/**
+	 * Creates a new Optimizer.
+	 */
+	public Optimizer()
+	{
+		frameNames = new HashSet<String>();
+	}
+	
+	/**
+	 * Optimizes the main Statement and every procedure of a Program.
+	 * 
+	 * @param program the Program to optimize
+	 */
+	public void optimize(Program program)
+	{
+		for (ProcedureDeclaration pd: program.getProcedures())
+		{
+			frameNames = new HashSet<String>();
+			frameNames.add(pd.getProcedureName());
+			addNames(pd.getParams());
+			addNames(pd.getLocalVars());
+			pd.setStatement(optimize(pd.getStatement(), new HashMap<String, Integer>()));
+		}
+		frameNames = new HashSet<String>();
+		program.setStmt(optimize(program.getStatement(), new HashMap<String, Integer>()));
+	}
+	
+	/**
+	 * Adds the names of a procedure's parameters or local variables to the
+	 * names that belong to the current procedure's frame.
+	 * 
+	 * @param vars the Variables
+	 */
+	private void addNames(List<Expression> vars)
+	{
+		for (Expression exp: vars)
+		{
+			if (exp instanceof Variable)
+			{
+				frameNames.add(((Variable) exp).getName());
+			}
+		}
+	}
+	
+	/**
+	 * Forgets the values of all global variables, because a procedure that
+	 * is called may assign them.
+	 * 
+	 * @param known the constant values of variables
+	 */
+	private void forgetGlobals(Map<String, Integer> known)
+	{
+		known.keySet().retainAll(frameNames);
+	}
+	
+	/**
+	 * Optimizes a Statement.
+	 * 
+	 * @param stmt the Statement
+	 * @param known the constant values of variables before the Statement,
+	 * 		  which is updated to the values known after it
+	 * @return the optimized Statement, which may be stmt itself
+	 */
+	private Statement optimize(Statement stmt, Map<String, Integer> known)
+	{
+		if (stmt instanceof Writeln)
+		{
+			Writeln w = (Writeln) stmt;
+			w.setExpression(optimize(w.getExpression(), known));
+		}
+		else if (stmt instanceof Assignment)
+		{
+			Assignment a = (Assignment) stmt;
+			Expression exp = optimize(a.getExpression(), known);
+			a.setExpression(exp);
+			if (exp instanceof Number)
+			{
+				known.put(a.getVar(), ((Number) exp).getValue());
+			}
+			else
+			{
+				known.remove(a.getVar());
+			}
+		}
+		else if (stmt instanceof Block)
+		{
+			List<Statement> stmts = ((Block) stmt).getStatements();
+			for (int i = 0; i < stmts.size(); i ++)
+			{
+				stmts.set(i, optimize(stmts.get(i), known));
+			}
+		}
+		else if (stmt instanceof If)
+		{
+			If iff = (If) stmt;
+			optimize(iff.getCond(), known);
+			Boolean value = constantValue(iff.getCond());
+			if (value != null)
+			{
+				return value ? optimize(iff.getStmt(), known) : empty(stmt);
+			}
+			Map<String, Integer> inner = new HashMap<String, Integer>(known);
+			iff.setStmt(optimize(iff.getStmt(), inner));
+			known.entrySet().removeIf(e -> !e.getValue().equals(inner.get(e.getKey())));
+		}
+		else if (stmt instanceof While)
+		{
+			While wh = (While) stmt;
+			forgetAssigned(wh.getStmt(), known);
+			if (containsCall(wh.getCond()))
+			{
+				forgetGlobals(known);
+			}
+			optimize(wh.getCond(), known);
+			if (Boolean.FALSE.equals(constantValue(wh.getCond())))
+			{
+				return empty(stmt);
+			}
+			wh.setStmt(optimize(wh.getStmt(), new HashMap<String, Integer>(known)));
+		}
+		return stmt;
+	}
+	
+	/**
+	 * Creates an empty Block to stand in for a Statement that is removed.
+	 * 
+	 * @param stmt the Statement that is removed
+	 * @return an empty Block with the same position
+	 */
+	private static Statement empty(Statement stmt)
+	{
+		Block b = new Block(new ArrayList<Statement>());
+		b.setPosition(stmt.getPosition());
+		return b;
+	}
+	
+	/**
+	 * Forgets the values of the variables that a Statement may assign,
+	 * including every global variable if it calls a procedure.
+	 * 
+	 * @param stmt the Statement
+	 * @param known the constant values of variables
+	 */
+	private void forgetAssigned(Statement stmt, Map<String, Integer> known)
+	{
+		if (stmt instanceof Writeln)
+		{
+			if (containsCall(((Writeln) stmt).getExpression()))
+			{
+				forgetGlobals(known);
+			}
+		}
+		else if (stmt instanceof Assignment)
+		{
+			Assignment a = (Assignment) stmt;
+			known.remove(a.getVar());
+			if (containsCall(a.getExpression()))
+			{
+				forgetGlobals(known);
+			}
+		}
+		else if (stmt instanceof Block)
+		{
+			for (Statement s: ((Block) stmt).getStatements())
+			{
+				forgetAssigned(s, known);
+			}
+		}
+		else if (stmt instanceof If)
+		{
+			If iff = (If) stmt;
+			if (containsCall(iff.getCond()))
+			{
+				forgetGlobals(known);
+			}
+			forgetAssigned(iff.getStmt(), known);
+		}
+		else if (stmt instanceof While)
+		{
+			While wh = (While) stmt;
+			if (containsCall(wh.getCond()))
+			{
+				forgetGlobals(known);
+			}
+			forgetAssigned(wh.getStmt(), known);
+		}
+	}
+	
+	/**
+	 * Optimizes both sides of a Condition, in the order they are evaluated.
+	 * 
+	 * @param cond the Condition
+	 * @param known the constant values of variables
+	 */
+	private void optimize(Condition cond, Map<String, Integer> known)
+	{
+		cond.setExp1(optimize(cond.getExp1(), known));
+		cond.setExp2(optimize(cond.getExp2(), known));
+	}
+	
+	/**
+	 * Works out the value of a Condition that compares two Numbers.
+	 * 
+	 * @param cond the Condition
+	 * @return the value of the Condition, or null if it is not constant
+	 */
+	private static Boolean constantValue(Condition cond)
+	{
+		if (!(cond.getExp1() instanceof Number) || !(cond.getExp2() instanceof Number))
+		{
+			return null;
+		}
+		int a = ((Number) cond.getExp1()).getValue();
+		int b = ((Number) cond.getExp2()).getValue();
+		switch (cond.getRelopKind())
+		{
+			case LESS:
+				return a < b;
+			case GREATER:
+				return a > b;
+			case NOT_EQUAL:
+				return a != b;
+			case GREATER_EQUAL:
+				return a >= b;
+			case LESS_EQUAL:
+				return a <= b;
+			case EQUAL:
+				return a == b;
+			default:
+				return null;
+		}
+	}
+	
+	/**
+	 * Optimizes an Expression. Its parts are optimized in the order in which
+	 * they are evaluated, so that a procedure call only affects what is known
+	 * about the variables read after it.
+	 * 
+	 * @param exp the Expression
+	 * @param known the constant values of variables
+	 * @return the optimized Expression, which may be exp itself
+	 */
+	private Expression optimize(Expression exp, Map<String, Integer> known)
+	{
+		if (exp instanceof Variable)
+		{
+			Integer value = known.get(((Variable) exp).getName());
+			if (value != null)
+			{
+				return number(value, exp);
+			}
+		}
+		else if (exp instanceof ProcedureCall)
+		{
+			List<Expression> args = ((ProcedureCall) exp).getParams();
+			for (int i = 0; i < args.size(); i ++)
+			{
+				args.set(i, optimize(args.get(i), known));
+			}
+			forgetGlobals(known);
+		}
+		else if (exp instanceof BinOp)
+		{
+			BinOp binop = (BinOp) exp;
+			binop.setExp1(optimize(binop.getExp1(), known));
+			binop.setExp2(optimize(binop.getExp2(), known));
+			return simplify(binop);
+		}
+		return exp;
+	}
+	
+	/**
+	 * Folds or simplifies a BinOp whose operands have been optimized.
+	 * 
+	 * @param binop the BinOp
+	 * @return the simplified Expression, or binop itself
+	 */
+	private static Expression simplify(BinOp binop)
+	{
+		Expression exp1 = binop.getExp1();
+		Expression exp2 = binop.getExp2();
+		Integer a = exp1 instanceof Number ? ((Number) exp1).getValue() : null;
+		Integer b = exp2 instanceof Number ? ((Number) exp2).getValue() : null;
+		switch (binop.getOperator())
+		{
+			case PLUS:
+				if (a != null && b != null)
+				{
+					return number(a + b, binop);
+				}
+				if (isConstant(a, 0))
+				{
+					return exp2;
+				}
+				if (isConstant(b, 0))
+				{
+					return exp1;
+				}
+				break;
+			case MINUS:
+				if (a != null && b != null)
+				{
+					return number(a - b, binop);
+				}
+				if (isConstant(b, 0))
+				{
+					return exp1;
+				}
+				break;
+			case TIMES:
+				if (a != null && b != null)
+				{
+					return number(a * b, binop);
+				}
+				if (isConstant(a, 1))
+				{
+					return exp2;
+				}
+				if (isConstant(b, 1))
+				{
+					return exp1;
+				}
+				if (isConstant(a, 0) && isPure(exp2) || isConstant(b, 0) && isPure(exp1))
+				{
+					return number(0, binop);
+				}
+				if (isConstant(a, -1))
+				{
+					return negate(exp2, binop);
+				}
+				if (isConstant(b, -1))
+				{
+					return negate(exp1, binop);
+				}
+				break;
+			case DIVIDE:
+				if (a != null && b != null && b != 0)
+				{
+					return number(a / b, binop);
+				}
+				if (isConstant(b, 1))
+				{
+					return exp1;
+				}
+				break;
+			case MOD:
+				if (a != null && b != null && b != 0)
+				{
+					return number(a % b, binop);
+				}
+				break;
+		}
+		return binop;
+	}
+	
+	/**
+	 * Checks whether an operand is a particular constant.
+	 * 
+	 * @param value the value of the operand, or null if it is not a Number
+	 * @param constant the constant
+	 * @return true if the operand is the constant; otherwise, false
+	 */
+	private static boolean isConstant(Integer value, int constant)
+	{
+		return value != null && value == constant;
+	}
+	
+	/**
+	 * Creates a Number that replaces an Expression.
+	 * 
+	 * @param value the value of the Number
+	 * @param replaced the Expression that is replaced
+	 * @return the Number, with the position of the replaced Expression
+	 */
+	private static Number number(int value, Expression replaced)
+	{
+		Number n = new Number(value);
+		n.setPosition(replaced.getPosition());
+		return n;
+	}
+	
+	/**
+	 * Creates the Expression 0 - exp, which replaces exp * -1.
+	 * 
+	 * @param exp the Expression to negate
+	 * @param replaced the Expression that is replaced
+	 * @return the negation, with the position of the replaced Expression
+	 */
+	private static Expression negate(Expression exp, Expression replaced)
+	{
+		BinOp neg = new BinOp("-", number(0, replaced), exp);
+		neg.setPosition(replaced.getPosition());
+		return neg;
+	}
+	
+	/**
+	 * Checks whether evaluating an Expression cannot have any effect other
+	 * than producing its value: it calls no procedures and does no division
+	 * that might be by zero.
+	 * 
+	 * @param exp the Expression
+	 * @return true if the Expression is pure; otherwise, false
+	 */
+	private static boolean isPure(Expression exp)
+	{
+		if (exp instanceof ProcedureCall)
+		{
+			return false;
+		}
+		if (exp instanceof BinOp)
+		{
+			BinOp binop = (BinOp) exp;
+			BinOp.OPERATOR op = binop.getOperator();
+			if ((op == BinOp.OPERATOR.DIVIDE || op == BinOp.OPERATOR.MOD)
+					&& !(binop.getExp2() instanceof Number && ((Number) binop.getExp2()).getValue() != 0))
+			{
+				return false;
+			}
+			return isPure(binop.getExp1()) && isPure(binop.getExp2());
+		}
+		return true;
+	}
+	
+	/**
+	 * Checks whether evaluating a Condition may call a procedure.
+	 * 
+	 * @param cond the Condition
+	 * @return true if either side calls a procedure; otherwise, false
+	 */
+	private static boolean containsCall(Condition cond)
+	{
+		return containsCall(cond.getExp1()) || containsCall(cond.getExp2());
+	}
+	
+	/**
+	 * Checks whether evaluating an Expression may call a procedure.
+	 * 
+	 * @param exp the Expression
+	 * @return true if the Expression calls a procedure; otherwise, false
+	 */
+	private static boolean containsCall(Expression exp)
+	{
+		return exp.hasCall();
+	}
+}
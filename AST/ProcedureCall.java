@@ -3,6 +3,7 @@ package ast;
 import java.util.List;
 
 import emitter.Emitter;
+import emitter.Opcode;
 import environment.Environment;
 
 /**
@@ -18,6 +19,7 @@ public class ProcedureCall extends Expression
 {
 	private String procedure;
 	private List<Expression> params;
+	private ProcedureDeclaration declaration;
 	
 	/**
 	 * Creates a new ProcedureCall with a ProcedureDeclaration
@@ -70,22 +72,101 @@ public class ProcedureCall extends Expression
 		this.procedure = procedure;
 	}
 	
+	/**
+	 * Retrieves the ProcedureDeclaration that this call was resolved to
+	 * by a SlotResolver.
+	 * 
+	 * @return the called ProcedureDeclaration, or null if the call has
+	 * 		   not been resolved
+	 */
+	public ProcedureDeclaration getDeclaration()
+	{
+		return declaration;
+	}
+	
+	/**
+	 * Sets the ProcedureDeclaration that this call is resolved to.
+	 * 
+	 * @param dec the called ProcedureDeclaration
+	 */
+	public void setDeclaration(ProcedureDeclaration dec)
+	{
+		declaration = dec;
+	}
+	
+	/**
+	 * Compiles a ProcedureCall. The arguments are evaluated in order. The
+	 * first four are passed in $a0-$a3 and are compiled straight into them,
+	 * unless a later argument calls a procedure, which would overwrite them;
+	 * such arguments are pushed onto the stack and loaded into their
+	 * registers once every argument has been evaluated. The remaining
+	 * arguments are pushed onto the stack. Then the program jumps to the
+	 * procedure, which saves and restores $ra and $fp itself and leaves its
+	 * return value in $v0, and afterwards everything that was pushed is
+	 * popped off of the stack at once.
+	 * 
+	 * @param e the Emitter used to emit MIPS code
+	 */
 	public void compile(Emitter e)
 	{
-		e.emitPush("$ra");
-		for (Expression exp: params) //pushes values of args onto stack
+		int lastCall = -1;
+		for (int i = 0; i < params.size(); i ++)
 		{
-			exp.compile(e);
-			e.emitPush("$v0");
+			if (params.get(i).hasCall())
+			{
+				lastCall = i;
+			}
 		}
-		e.emit("# pushing return value");
-		e.emit("li $v0, 0");
-		e.emitPush("$v0");
-		e.emit("jal proc" + procedure);
-		for (Expression exp: params) //pops values of args off of the stack
+		int pushed = 0;
+		int[] pushedAt = new int[Emitter.ARGUMENT_REGISTERS];
+		for (int i = 0; i < params.size(); i ++)
 		{
-			e.emitPop("$t0");
+			if (i < Emitter.ARGUMENT_REGISTERS && i > lastCall)
+			{
+				params.get(i).compile(e, Emitter.A0 + i, 0);
+			}
+			else
+			{
+				params.get(i).compile(e);
+				e.emitPush(Emitter.V0);
+				if (i < Emitter.ARGUMENT_REGISTERS)
+				{
+					pushedAt[i] = pushed;
+				}
+				pushed ++;
+			}
 		}
-		e.emitPop("$ra");
+		for (int i = 0; i <= lastCall && i < Emitter.ARGUMENT_REGISTERS; i ++)
+		{
+			e.emit(Opcode.LW, Emitter.A0 + i, 4*(pushed - 1 - pushedAt[i]), Emitter.SP);
+		}
+		e.emit(Opcode.JAL, e.symbol("proc" + procedure));
+		if (pushed > 0) //pops values of args off of the stack
+		{
+			e.emit(Opcode.ADDIU, Emitter.SP, Emitter.SP, 4*pushed);
+		}
+	}
+	
+	/**
+	 * A ProcedureCall always calls a procedure.
+	 * 
+	 * @return true
+	 */
+	public boolean hasCall()
+	{
+		return true;
+	}
+	
+	/**
+	 * Evaluates the ProcedureCall by passing it to the Evaluator's eval
+	 * method for ProcedureCalls.
+	 * 
+	 * @param ev the Evaluator that evaluates the ProcedureCall
+	 * @param env the Environment where the evaluation happens
+	 * @return the numerical value of the ProcedureCall
+	 */
+	public int eval(Evaluator ev, Environment env)
+	{
+		return ev.eval(this, env);
 	}
 }
@@ -3,6 +3,7 @@ package ast;
 import java.util.List;
 
 import emitter.Emitter;
+import emitter.Opcode;
 import environment.Environment;
 
 /**
@@ -21,6 +22,10 @@ public class ProcedureDeclaration extends Statement
 	private Statement stmt;
 	private List<Expression> params;
 	private List<Expression> localVars;
+	private int frameSize;
+	private int returnSlot;
+	private int calls;
+	private ClosureCompiler.CompiledProcedure compiled;
 	
 	/**
 	 * Creates a new ProcedureDeclaration with a procedure name,
@@ -104,39 +109,153 @@ public class ProcedureDeclaration extends Statement
 		this.stmt = stmt;
 	}
 	
+	/**
+	 * Retrieves the number of slots in a frame of this procedure, which
+	 * is set by a SlotResolver.
+	 * 
+	 * @return the number of slots for parameters, the return value and
+	 * 		   local variables
+	 */
+	public int getFrameSize()
+	{
+		return frameSize;
+	}
+	
+	/**
+	 * Sets the number of slots in a frame of this procedure.
+	 * 
+	 * @param size the new number of slots
+	 */
+	public void setFrameSize(int size)
+	{
+		frameSize = size;
+	}
+	
+	/**
+	 * Retrieves the slot of the variable named after the procedure, which
+	 * holds the value that a call to the procedure returns.
+	 * 
+	 * @return the slot of the return value
+	 */
+	public int getReturnSlot()
+	{
+		return returnSlot;
+	}
+	
+	/**
+	 * Sets the slot of the variable that holds the return value.
+	 * 
+	 * @param slot the new slot of the return value
+	 */
+	public void setReturnSlot(int slot)
+	{
+		returnSlot = slot;
+	}
+	
+	/**
+	 * Counts one more call of this procedure by the Evaluator.
+	 * 
+	 * @return the number of calls counted so far, including this one
+	 */
+	public int countCall()
+	{
+		return ++ calls;
+	}
+	
+	/**
+	 * Retrieves the compiled form of this procedure that the Evaluator
+	 * switched to once the procedure became hot.
+	 * 
+	 * @return the compiled procedure, or null if it has not been compiled
+	 */
+	public ClosureCompiler.CompiledProcedure getCompiled()
+	{
+		return compiled;
+	}
+	
+	/**
+	 * Sets the compiled form of this procedure, and resets its call count.
+	 * Setting it to null makes the Evaluator interpret the procedure again
+	 * until it becomes hot.
+	 * 
+	 * @param proc the compiled procedure, or null
+	 */
+	public void setCompiled(ClosureCompiler.CompiledProcedure proc)
+	{
+		compiled = proc;
+		calls = 0;
+	}
+	
 	/**
 	 * Compiles a ProcedureDeclaration by creating a subroutine for the
-	 * procedure. Then, each of the ProcedureDeclaration's local variables
-	 * is pushed onto the stack (on top of the return value and parameters
-	 * for the ProcedureCall). The Emitter then sets its procedure context
-	 * to this procedure, which is useful for later identifying local
-	 * variables based on whether they are part of the procedure's parameter
-	 * list. Then, after the statement in the ProcedureDeclaration is compiled,
-	 * the local variables are popped off of the stack, the return value
-	 * is popped off into $v0, and the program jumps back to the last known
-	 * return address. Finally, the emitter's instance variable for
-	 * procedure context is reset to null.
+	 * procedure. First, the Emitter sets its procedure context to this
+	 * procedure, which lays out its frame, so that parameters and local
+	 * variables are found in argument registers or at fixed offsets from
+	 * $fp. The prologue makes room for the frame below any arguments
+	 * pushed by the caller, saves $ra (unless the procedure is a leaf) and
+	 * $fp in it, points $fp just above it, sets the return value and local
+	 * variables to 0 and, unless the procedure is a leaf, stores the
+	 * arguments passed in $a0-$a3. Then, after
+	 * the statement in the ProcedureDeclaration is compiled, the epilogue
+	 * loads the return value into $v0, restores $ra (unless the procedure is
+	 * a leaf), $sp and $fp, and the
+	 * program jumps back to the return address. Finally, the emitter's
+	 * instance variable for procedure context is reset to null.
 	 * 
 	 * @param e the Emitter used to emit MIPS code
 	 */
 	public void compile(Emitter e)
 	{
-		e.emit("proc" + procedureName + ":");
-		e.emit("# pushing local vars");
-		for (Expression exp: localVars)
+		e.setProcedureContext(this);
+		int frameSize = e.getFrameSize();
+		boolean leaf = e.isLeafProcedure();
+		e.emit(Opcode.LABEL, e.symbol("proc" + procedureName));
+		e.emitComment("prologue");
+		e.emit(Opcode.ADDIU, Emitter.SP, Emitter.SP, -frameSize);
+		if (!leaf)
 		{
-			e.emit("li $v0, 0");
-			e.emitPush("$v0");
+			e.emit(Opcode.SW, Emitter.RA, frameSize + Emitter.RA_OFFSET, Emitter.SP);
+		}
+		e.emit(Opcode.SW, Emitter.FP, frameSize + Emitter.FP_OFFSET, Emitter.SP);
+		e.emit(Opcode.ADDIU, Emitter.FP, Emitter.SP, frameSize);
+		for (int i = 0; i <= localVars.size(); i ++)
+		{
+			e.emit(Opcode.SW, Emitter.ZERO, Emitter.RETURN_OFFSET - 4*i, Emitter.FP); //zeroes the return value and locals
+		}
+		for (int i = 0; !leaf && i < Math.min(params.size(), Emitter.ARGUMENT_REGISTERS); i ++)
+		{
+			e.emit(Opcode.SW, Emitter.A0 + i, e.getArgumentOffset(i), Emitter.FP);
 		}
-		e.setProcedureContext(this);
 		stmt.compile(e);
-		for (Expression exp: localVars)
+		e.emitComment("epilogue");
+		int reg = e.getRegister(procedureName);
+		if (reg >= 0)
+		{
+			e.emit(Opcode.MOVE, Emitter.V0, reg);
+		}
+		else
+		{
+			e.emit(Opcode.LW, Emitter.V0, e.getOffSet(procedureName), Emitter.FP);
+		}
+		if (!leaf)
 		{
-			e.emitPop("$t0");
+			e.emit(Opcode.LW, Emitter.RA, Emitter.RA_OFFSET, Emitter.FP);
 		}
-		e.emit("#popping return value");
-		e.emitPop("$v0"); //pops off the return value to $v0
-		e.emit("jr $ra");
+		e.emit(Opcode.MOVE, Emitter.SP, Emitter.FP);
+		e.emit(Opcode.LW, Emitter.FP, Emitter.FP_OFFSET, Emitter.SP);
+		e.emit(Opcode.JR, Emitter.RA);
 		e.clearProcedureContext();
 	}
+	
+	/**
+	 * Executes the ProcedureDeclaration by passing it to the Evaluator's exec
+	 * method for ProcedureDeclarations.
+	 * 
+	 * @param ev the Evaluator that executes the ProcedureDeclaration
+	 * @param env the Environment where the execution happens
+	 */
+	public void exec(Evaluator ev, Environment env)
+	{
+		ev.exec(this, env);
+	}
 }
@@ -18,6 +18,7 @@ public class Program
 	private List<String> variables;
 	private List<ProcedureDeclaration> procedures;
 	private Statement stmt;
+	private int globalCount;
 	
 	/**
 	 * Creates a new Program with a List of ProcedureDeclarations and a 
@@ -96,6 +97,27 @@ public class Program
 	{
 		this.variables = variables;
 	}
+	
+	/**
+	 * Retrieves the number of global slots that the Program needs, which
+	 * is set by a SlotResolver.
+	 * 
+	 * @return the number of global variables
+	 */
+	public int getGlobalCount()
+	{
+		return globalCount;
+	}
+	
+	/**
+	 * Sets the number of global slots that the Program needs.
+	 * 
+	 * @param count the new number of global variables
+	 */
+	public void setGlobalCount(int count)
+	{
+		globalCount = count;
+	}
 
 	/**
 	 * Compiles a Program by calling its Statement's
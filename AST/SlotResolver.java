@@ -0,0 +1,255 @@
+package ast;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import environment.Environment;
+
+/**
+ * A SlotResolver assigns every variable in a Program a fixed slot, so that
+ * the Evaluator can load and store a variable with a single array access
+ * instead of looking its name up in a chain of maps. Resolution is lexical:
+ * a procedure sees its own parameters and variables and the globals, but
+ * never the variables of the procedure that called it, which is also how
+ * the Emitter lays out variables in MIPS.
+ * 
+ * The globals are the Program's VAR list, followed by any other name that is
+ * used outside of a procedure's own variables. A procedure's frame holds its
+ * parameters first, then the variable named after the procedure (which holds
+ * its return value), and then its local variables. Each ProcedureCall is also
+ * linked to the ProcedureDeclaration that it calls. Because resolving a
+ * procedure may change its layout, any compiled form of it is discarded.
+ * 
+ * Usage:
+ * new SlotResolver().resolve(program);
+ * 
+ * @author Ashwin Rammohan
+ * @version October 17, 2026
+ *
+ */
+public class SlotResolver
+{
+	private Map<String, Integer> globals;
+	private Map<String, ProcedureDeclaration> procedures;
+	private Map<String, Integer> frame;
+	
+	/**
+	 * Creates a new SlotResolver.
+	 */
+	public SlotResolver()
+	{
+		globals = new HashMap<String, Integer>();
+		procedures = new HashMap<String, ProcedureDeclaration>();
+	}
+	
+	/**
+	 * Resolves every variable and procedure call in a Program, and records
+	 * the number of global slots that the Program needs.
+	 * 
+	 * @param program the Program to resolve
+	 * @throws IllegalArgumentException if the Program calls a procedure that
+	 * 		   is not declared, calls a procedure with the wrong number of
+	 * 		   arguments, or declares a parameter that is not a variable name
+	 */
+	public void resolve(Program program)
+	{
+		globals.clear();
+		procedures.clear();
+		for (String name: program.getVariables())
+		{
+			globalSlot(name);
+		}
+		for (ProcedureDeclaration pd: program.getProcedures())
+		{
+			procedures.put(pd.getProcedureName(), pd);
+		}
+		for (ProcedureDeclaration pd: program.getProcedures())
+		{
+			resolve(pd);
+		}
+		frame = null;
+		resolve(program.getStatement());
+		program.setGlobalCount(globals.size());
+	}
+	
+	/**
+	 * Resolves a Program, and makes sure that the global Environment of an
+	 * Environment has a slot for each of the Program's global variables.
+	 * 
+	 * @param program the Program to resolve
+	 * @param env the Environment where the Program is going to be executed
+	 * @throws IllegalArgumentException if the Program cannot be resolved
+	 */
+	public void resolve(Program program, Environment env)
+	{
+		resolve(program);
+		Environment global = env.getGlobal();
+		if (global.getSlots().length < program.getGlobalCount())
+		{
+			global.setSlots(Arrays.copyOf(global.getSlots(), program.getGlobalCount()));
+		}
+	}
+	
+	/**
+	 * Lays out the frame of a ProcedureDeclaration and resolves its Statement.
+	 * 
+	 * @param pd the ProcedureDeclaration
+	 */
+	private void resolve(ProcedureDeclaration pd)
+	{
+		pd.setCompiled(null);
+		frame = new HashMap<String, Integer>();
+		for (Expression param: pd.getParams())
+		{
+			declare(param);
+		}
+		frame.putIfAbsent(pd.getProcedureName(), frame.size());
+		pd.setReturnSlot(frame.get(pd.getProcedureName()));
+		for (Expression local: pd.getLocalVars())
+		{
+			declare(local);
+		}
+		pd.setFrameSize(frame.size());
+		resolve(pd.getStatement());
+	}
+	
+	/**
+	 * Gives a parameter or local variable of the current procedure a slot in
+	 * its frame.
+	 * 
+	 * @param exp the Variable that is declared
+	 */
+	private void declare(Expression exp)
+	{
+		if (!(exp instanceof Variable))
+		{
+			throw new IllegalArgumentException("Expected a variable name in a procedure declaration");
+		}
+		Variable var = (Variable) exp;
+		frame.putIfAbsent(var.getName(), frame.size());
+		var.setSlot(frame.get(var.getName()), false);
+	}
+	
+	/**
+	 * Retrieves the global slot of a name, giving it a new slot if it does
+	 * not have one yet.
+	 * 
+	 * @param name the name of the global variable
+	 * @return the slot of the variable
+	 */
+	private int globalSlot(String name)
+	{
+		Integer slot = globals.get(name);
+		if (slot == null)
+		{
+			slot = globals.size();
+			globals.put(name, slot);
+		}
+		return slot;
+	}
+	
+	/**
+	 * Resolves the variables used in a Statement.
+	 * 
+	 * @param stmt the Statement
+	 */
+	private void resolve(Statement stmt)
+	{
+		if (stmt instanceof Writeln)
+		{
+			resolve(((Writeln) stmt).getExpression());
+		}
+		else if (stmt instanceof Assignment)
+		{
+			Assignment a = (Assignment) stmt;
+			resolve(a.getExpression());
+			if (frame != null && frame.containsKey(a.getVar()))
+			{
+				a.setSlot(frame.get(a.getVar()), false);
+			}
+			else
+			{
+				a.setSlot(globalSlot(a.getVar()), true);
+			}
+		}
+		else if (stmt instanceof Block)
+		{
+			for (Statement s: ((Block) stmt).getStatements())
+			{
+				resolve(s);
+			}
+		}
+		else if (stmt instanceof If)
+		{
+			If iff = (If) stmt;
+			resolve(iff.getCond());
+			resolve(iff.getStmt());
+		}
+		else if (stmt instanceof While)
+		{
+			While wh = (While) stmt;
+			resolve(wh.getCond());
+			resolve(wh.getStmt());
+		}
+	}
+	
+	/**
+	 * Resolves the variables used in both sides of a Condition.
+	 * 
+	 * @param cond the Condition
+	 */
+	private void resolve(Condition cond)
+	{
+		resolve(cond.getExp1());
+		resolve(cond.getExp2());
+	}
+	
+	/**
+	 * Resolves the variables and procedure calls in an Expression.
+	 * 
+	 * @param exp the Expression
+	 */
+	private void resolve(Expression exp)
+	{
+		if (exp instanceof BinOp)
+		{
+			BinOp binop = (BinOp) exp;
+			resolve(binop.getExp1());
+			resolve(binop.getExp2());
+		}
+		else if (exp instanceof Variable)
+		{
+			Variable var = (Variable) exp;
+			if (frame != null && frame.containsKey(var.getName()))
+			{
+				var.setSlot(frame.get(var.getName()), false);
+			}
+			else
+			{
+				var.setSlot(globalSlot(var.getName()), true);
+			}
+		}
+		else if (exp instanceof ProcedureCall)
+		{
+			ProcedureCall pc = (ProcedureCall) exp;
+			ProcedureDeclaration dec = procedures.get(pc.getProcedure());
+			if (dec == null)
+			{
+				throw new IllegalArgumentException("Unknown procedure: " + pc.getProcedure());
+			}
+			List<Expression> args = pc.getParams();
+			if (args.size() != dec.getParams().size())
+			{
+				throw new IllegalArgumentException("Procedure " + pc.getProcedure() + " takes "
+						+ dec.getParams().size() + " arguments but was given " + args.size());
+			}
+			for (Expression arg: args)
+			{
+				resolve(arg);
+			}
+			pc.setDeclaration(dec);
+		}
+	}
+}
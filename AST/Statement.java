@@ -2,6 +2,7 @@ package ast;
 
 import emitter.Emitter;
 import environment.Environment;
+import scanner.Token;
 
 /**
  * A Statement is an element in the input stream that is
@@ -10,12 +11,69 @@ import environment.Environment;
  * in the input source code. Statements can also be BLOCKS, 
  * in which case they are made up of multiple other statements.
  * 
+ * Each Statement also records the position in the source code where it
+ * starts, as a line and column packed by Token.position(). The Parser sets
+ * the position; Statements that are built by other means have position 0.
+ * 
  * @author Ashwin Rammohan
  * @version October 12, 2017
  *
  */
 public abstract class Statement 
 {
+	private int position;
+	
+	/**
+	 * Retrieves the packed source position of this statement.
+	 * 
+	 * @return the packed position, or 0 if it is unknown
+	 */
+	public int getPosition()
+	{
+		return position;
+	}
+	
+	/**
+	 * Sets the packed source position of this statement.
+	 * 
+	 * @param pos the packed position, as made by Token.position()
+	 */
+	public void setPosition(int pos)
+	{
+		position = pos;
+	}
+	
+	/**
+	 * Retrieves the line on which this statement starts.
+	 * 
+	 * @return the line, or 0 if the position is unknown
+	 */
+	public int getLine()
+	{
+		return Token.lineOf(position);
+	}
+	
+	/**
+	 * Retrieves the column at which this statement starts.
+	 * 
+	 * @return the column, or 0 if the position is unknown
+	 */
+	public int getColumn()
+	{
+		return Token.columnOf(position);
+	}
+	
+	/**
+	 * Executes this Statement with an Evaluator. Each kind of Statement
+	 * calls the Evaluator's exec method for its own class, so executing
+	 * a Statement takes a single virtual call instead of a chain of
+	 * instanceof checks.
+	 * 
+	 * @param ev the Evaluator that executes the Statement
+	 * @param env the Environment where the execution happens
+	 */
+	public abstract void exec(Evaluator ev, Environment env);
+	
 	/**
 	 * It is expected that all classes that implement Statement
 	 * override this method and have their own distinct
@@ -29,4 +87,18 @@ public abstract class Statement
 	{
 		throw new RuntimeException("Implement me!!!!!");
 	}
+	
+	/**
+	 * Determines whether executing this Statement may call a procedure or
+	 * make a syscall. A procedure whose body does neither is a leaf
+	 * procedure, which keeps its first parameters in registers and does
+	 * not save $ra.
+	 * 
+	 * @return true if the Statement may call a procedure or make a syscall;
+	 * 		   otherwise, false
+	 */
+	public boolean hasCall()
+	{
+		return false;
+	}
 }
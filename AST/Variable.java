@@ -1,14 +1,16 @@
 package ast;
 
 import emitter.Emitter;
+import emitter.Opcode;
+import environment.Environment;
 
 /**
  * A Variable is an element in the abstract syntax tree
  * that contains a variable name (a String).
  * Assignment statements are responsible
- * for assigning values to variables. Variables and their
- * corresponding values are stored in the Environment class's
- * Map.
+ * for assigning values to variables. When a Program is evaluated,
+ * each variable's value is stored in a slot of an Environment,
+ * which is assigned to the Variable by a SlotResolver.
  * 
  * @author Ashwin Rammohan
  * @version December 31, 2017
@@ -16,6 +18,8 @@ import emitter.Emitter;
 public class Variable extends Expression
 {
 	private String name;
+	private int slot;
+	private boolean global;
 	
 	/**
 	 * Creates a new Variable with a specific variable name. 
@@ -24,6 +28,7 @@ public class Variable extends Expression
 	public Variable(String varName)
 	{
 		name = varName;
+		slot = -1;
 	}
 
 	/**
@@ -45,6 +50,39 @@ public class Variable extends Expression
 	{
 		name = varName;
 	}
+
+	/**
+	 * Retrieves the slot of the variable, which is assigned by a SlotResolver.
+	 * 
+	 * @return the slot, or -1 if the variable has not been resolved
+	 */
+	public int getSlot()
+	{
+		return slot;
+	}
+	
+	/**
+	 * Tells whether the slot of the variable is in the global Environment
+	 * rather than in the frame of the current procedure.
+	 * 
+	 * @return true if the variable is global; otherwise, false
+	 */
+	public boolean isGlobal()
+	{
+		return global;
+	}
+	
+	/**
+	 * Sets the slot of the variable.
+	 * 
+	 * @param index the slot
+	 * @param isGlobal whether the slot is in the global Environment
+	 */
+	public void setSlot(int index, boolean isGlobal)
+	{
+		slot = index;
+		global = isGlobal;
+	}
 	
 	/**
 	 * Compiles a variable in two different ways based on whether
@@ -52,23 +90,57 @@ public class Variable extends Expression
 	 * has not been set or the variable is known to not be local, the address
 	 * of the variable is simply loaded into $t0. If the variable is local,
 	 * the address of the variable in the stack is loaded into $t0. The exact
-	 * address of the variable in the stack is referenced by modifying ($sp) by
+	 * address of the variable in the stack is referenced by modifying ($fp) by
 	 * the variable's offset. Finally, in either scenario, the value stored
 	 * at the variable's address is loaded into $v0.
 	 * 
 	 * @param e the Emitter used to emit MIPS code
 	 */
 	public void compile(Emitter e)
+	{
+		compile(e, Emitter.V0, 0);
+	}
+	
+	/**
+	 * Compiles a variable into a register, in the same way as compile(e)
+	 * but using the target register for both the address and the value. A
+	 * parameter that is kept in an argument register is just moved.
+	 * 
+	 * @param e the Emitter used to emit MIPS code
+	 * @param target the register that receives the value
+	 * @param base the index of the first free register
+	 */
+	public void compile(Emitter e, int target, int base)
 	{
 		if (e.getProcedureContext() == null || !e.isLocalVariable(name))
 		{
-			e.emit("la $t0," + name);
+			e.emit(Opcode.LA_SYM, target, e.symbol(name));
+		}
+		else if (e.getRegister(name) >= 0)
+		{
+			if (e.getRegister(name) != target)
+			{
+				e.emit(Opcode.MOVE, target, e.getRegister(name));
+			}
+			return;
 		}
 		else
 		{
-			//System.out.println(name + " offset: " + e.getOffSet(name));
-			e.emit("la $t0, " + e.getOffSet(name) + "($sp)");
+			e.emit(Opcode.LA, target, e.getOffSet(name), Emitter.FP);
 		}
-		e.emit("lw $v0, ($t0)");
+		e.emit(Opcode.LW, target, 0, target);
+	}
+	
+	/**
+	 * Evaluates the Variable by passing it to the Evaluator's eval
+	 * method for Variables.
+	 * 
+	 * @param ev the Evaluator that evaluates the Variable
+	 * @param env the Environment where the evaluation happens
+	 * @return the numerical value of the Variable
+	 */
+	public int eval(Evaluator ev, Environment env)
+	{
+		return ev.eval(this, env);
 	}
 }
@@ -1,6 +1,8 @@
 package ast;
 
 import emitter.Emitter;
+import emitter.Opcode;
+import environment.Environment;
 
 /**
  * A While statement (or while loop) is a type of Statement
@@ -83,11 +85,35 @@ public class While extends Statement
 	 */
 	public void compile(Emitter e)
 	{
-		int i = e.nextLabelID();
-		e.emit("while" + i + ":");
-		cond.compile(e, "endWhile" + i + "");	
+		int loop = e.newLabel("while");
+		int endWhile = e.newLabel("endWhile");
+		e.emit(Opcode.LABEL, loop);
+		cond.compile(e, endWhile);
 		stmt.compile(e);
-		e.emit("j while" + i + "");
-		e.emit("endWhile" + i + ":");		
+		e.emit(Opcode.J, loop);
+		e.emit(Opcode.LABEL, endWhile);
+	}
+	
+	/**
+	 * Determines whether the Condition or the Statement of the While loop
+	 * calls a procedure or makes a syscall.
+	 * 
+	 * @return true if either does; otherwise, false
+	 */
+	public boolean hasCall()
+	{
+		return cond.hasCall() || stmt.hasCall();
+	}
+	
+	/**
+	 * Executes the WHILE loop by passing it to the Evaluator's exec
+	 * method for Whiles.
+	 * 
+	 * @param ev the Evaluator that executes the WHILE loop
+	 * @param env the Environment where the execution happens
+	 */
+	public void exec(Evaluator ev, Environment env)
+	{
+		ev.exec(this, env);
 	}
 }
@@ -1,6 +1,7 @@
 package ast;
 
 import emitter.Emitter;
+import emitter.Opcode;
 import environment.Environment;
 /**
  * A Writeln is a type of Statement that is supposed
@@ -48,8 +49,8 @@ public class Writeln extends Statement
 	/**
 	 * Compiles a Writeln statement by first compiling
 	 * the Expression in the Writeln. After the Expression
-	 * has been compiled, its value will be stored in $v0.
-	 * The value in $v0 is then copied to $a0, and is printed.
+	 * has been compiled, its value will be stored in $a0,
+	 * and is printed.
 	 * Finally, a newline is also printed to make the output of
 	 * the entire Program easier to read.
 	 * 
@@ -57,14 +58,33 @@ public class Writeln extends Statement
 	 */
 	public void compile(Emitter e)
 	{
-		exp.compile(e);
-		e.emit("move $a0, $v0");
-		e.emit("li $v0, 1"); //print value in $a0
-		e.emit("syscall");
-		e.emit("la $a0, newline");
-		e.emit("li $v0, 4"); //print the newline
-		e.emit("syscall");		
+		exp.compile(e, Emitter.A0, 0);
+		e.emit(Opcode.LI, Emitter.V0, 1); //print value in $a0
+		e.emit(Opcode.SYSCALL);
+		e.emit(Opcode.LA_SYM, Emitter.A0, e.symbol("newline"));
+		e.emit(Opcode.LI, Emitter.V0, 4); //print the newline
+		e.emit(Opcode.SYSCALL);
 	}
 	
-
+	/**
+	 * A Writeln always makes a syscall, which uses $a0 and $v0.
+	 * 
+	 * @return true
+	 */
+	public boolean hasCall()
+	{
+		return true;
+	}
+	
+	/**
+	 * Executes the WRITELN statement by passing it to the Evaluator's exec
+	 * method for Writelns.
+	 * 
+	 * @param ev the Evaluator that executes the WRITELN statement
+	 * @param env the Environment where the execution happens
+	 */
+	public void exec(Evaluator ev, Environment env)
+	{
+		ev.exec(this, env);
+	}
 }
@@ -0,0 +1,179 @@
+package emitter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A ChannelWriter writes text to a WritableByteChannel through a large byte
+ * buffer. Characters are encoded as UTF-8 straight into the buffer, which is
+ * only written to the channel when it fills up and when the ChannelWriter is
+ * flushed or closed, so writing a whole MIPS file usually takes a handful of
+ * system calls.
+ * 
+ * The channel can be a FileChannel, or any other channel, such as one made
+ * by Channels.newChannel around a ByteArrayOutputStream to keep the output
+ * in memory. A program that writes many files can pass the same ByteBuffer
+ * to each ChannelWriter it creates, one after another, instead of
+ * allocating a new buffer for every file.
+ * 
+ * @author Ashwin Rammohan
+ * @version October 17, 2026
+ *
+ */
+public class ChannelWriter implements Appendable, Closeable
+{
+	/**
+	 * The size of the buffer that is allocated when none is given.
+	 */
+	public static final int BUFFER_SIZE = 1 << 16;
+	
+	private WritableByteChannel channel;
+	private ByteBuffer buffer;
+	private boolean closeChannel;
+	
+	/**
+	 * Creates a ChannelWriter with a new direct buffer, which closes the
+	 * channel when it is closed.
+	 * 
+	 * @param channel the channel to write to
+	 */
+	public ChannelWriter(WritableByteChannel channel)
+	{
+		this(channel, ByteBuffer.allocateDirect(BUFFER_SIZE), true);
+	}
+	
+	/**
+	 * Creates a ChannelWriter that writes through a given buffer. The buffer
+	 * is cleared first, and it must not be used by anything else until the
+	 * ChannelWriter has been closed.
+	 * 
+	 * @param channel the channel to write to
+	 * @param buffer the buffer to collect bytes in, of at least 4 bytes
+	 * @param closeChannel true if closing the ChannelWriter should also
+	 * 		  close the channel; false if the caller will close it
+	 */
+	public ChannelWriter(WritableByteChannel channel, ByteBuffer buffer, boolean closeChannel)
+	{
+		this.channel = channel;
+		this.buffer = buffer;
+		this.closeChannel = closeChannel;
+		buffer.clear();
+	}
+	
+	/**
+	 * Writes one character.
+	 * 
+	 * @param c the character
+	 * @return this ChannelWriter
+	 * @throws IOException if the channel cannot be written
+	 */
+	public ChannelWriter append(char c) throws IOException
+	{
+		if (buffer.remaining() < 3)
+		{
+			drain();
+		}
+		if (c < 0x80)
+		{
+			buffer.put((byte) c);
+		}
+		else if (c < 0x800)
+		{
+			buffer.put((byte) (0xC0 | c >> 6));
+			buffer.put((byte) (0x80 | c & 0x3F));
+		}
+		else
+		{
+			buffer.put((byte) (0xE0 | c >> 12));
+			buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+			buffer.put((byte) (0x80 | c & 0x3F));
+		}
+		return this;
+	}
+	
+	/**
+	 * Writes a sequence of characters.
+	 * 
+	 * @param csq the characters, or null to write "null"
+	 * @return this ChannelWriter
+	 * @throws IOException if the channel cannot be written
+	 */
+	public ChannelWriter append(CharSequence csq) throws IOException
+	{
+		if (csq == null)
+		{
+			csq = "null";
+		}
+		return append(csq, 0, csq.length());
+	}
+	
+	/**
+	 * Writes part of a sequence of characters.
+	 * 
+	 * @param csq the characters, or null to write part of "null"
+	 * @param start the index of the first character to write
+	 * @param end the index after the last character to write
+	 * @return this ChannelWriter
+	 * @throws IOException if the channel cannot be written
+	 */
+	public ChannelWriter append(CharSequence csq, int start, int end) throws IOException
+	{
+		if (csq == null)
+		{
+			csq = "null";
+		}
+		for (int i = start; i < end; i ++)
+		{
+			append(csq.charAt(i));
+		}
+		return this;
+	}
+	
+	/**
+	 * Writes the buffered bytes to the channel and empties the buffer.
+	 * 
+	 * @throws IOException if the channel cannot be written
+	 */
+	private void drain() throws IOException
+	{
+		buffer.flip();
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+	
+	/**
+	 * Writes everything that has been buffered to the channel.
+	 * 
+	 * @throws IOException if the channel cannot be written
+	 */
+	public void flush() throws IOException
+	{
+		drain();
+	}
+	
+	/**
+	 * Flushes the buffer, and closes the channel if this ChannelWriter
+	 * was made to close it.
+	 * 
+	 * @throws IOException if the channel cannot be written or closed
+	 */
+	public void close() throws IOException
+	{
+		try
+		{
+			drain();
+		}
+		finally
+		{
+			if (closeChannel)
+			{
+				channel.close();
+			}
+		}
+	}
+}
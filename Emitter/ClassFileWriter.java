@@ -0,0 +1,603 @@
+package emitter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A ClassFileWriter builds a Java class file in memory, one field and one
+ * method at a time, so that a Program can be compiled into bytecode and
+ * loaded directly into the running JVM. It writes version 49 class files,
+ * which the JVM verifies by type inference, so no stack map frames have to
+ * be computed. Only the parts of the class file format that the compiler
+ * needs are supported: static fields, methods with a Code attribute, and
+ * constant pool entries for classes, fields, methods and integers.
+ * 
+ * Usage:
+ * ClassFileWriter cw = new ClassFileWriter("Example", "java/lang/Object");
+ * ClassFileWriter.MethodWriter m = cw.addMethod(ClassFileWriter.ACC_PUBLIC
+ * 		| ClassFileWriter.ACC_STATIC, "run", "()V");
+ * m.op(ClassFileWriter.RETURN, 0);
+ * byte[] bytes = cw.toByteArray();
+ * 
+ * @author Ashwin Rammohan
+ * @version October 17, 2026
+ *
+ */
+public class ClassFileWriter
+{
+	public static final int ACC_PUBLIC = 0x0001;
+	public static final int ACC_STATIC = 0x0008;
+	public static final int ACC_SUPER = 0x0020;
+	
+	public static final int ICONST_0 = 3;
+	public static final int BIPUSH = 16;
+	public static final int SIPUSH = 17;
+	public static final int LDC = 18;
+	public static final int LDC_W = 19;
+	public static final int ILOAD = 21;
+	public static final int ALOAD = 25;
+	public static final int IALOAD = 46;
+	public static final int ISTORE = 54;
+	public static final int IASTORE = 79;
+	public static final int POP = 87;
+	public static final int IADD = 96;
+	public static final int ISUB = 100;
+	public static final int IMUL = 104;
+	public static final int IDIV = 108;
+	public static final int IREM = 112;
+	public static final int IF_ICMPEQ = 159;
+	public static final int IF_ICMPNE = 160;
+	public static final int IF_ICMPLT = 161;
+	public static final int IF_ICMPGE = 162;
+	public static final int IF_ICMPGT = 163;
+	public static final int IF_ICMPLE = 164;
+	public static final int GOTO = 167;
+	public static final int IRETURN = 172;
+	public static final int RETURN = 177;
+	public static final int GETSTATIC = 178;
+	public static final int PUTSTATIC = 179;
+	public static final int INVOKEVIRTUAL = 182;
+	public static final int INVOKESTATIC = 184;
+	public static final int WIDE = 196;
+	
+	private static final int CONSTANT_UTF8 = 1;
+	private static final int CONSTANT_INTEGER = 3;
+	private static final int CONSTANT_CLASS = 7;
+	private static final int CONSTANT_FIELDREF = 9;
+	private static final int CONSTANT_METHODREF = 10;
+	private static final int CONSTANT_NAME_AND_TYPE = 12;
+	
+	private final ByteArrayOutputStream poolBytes;
+	private final DataOutputStream pool;
+	private final Map<String, Integer> poolIndices;
+	private int poolCount;
+	private final int thisClass;
+	private final int superClass;
+	private final List<int[]> fields;
+	private final List<MethodWriter> methods;
+	
+	/**
+	 * Creates a new ClassFileWriter for a public class.
+	 * 
+	 * @param className the internal name of the class, such as "pkg/Name"
+	 * @param superName the internal name of its superclass
+	 */
+	public ClassFileWriter(String className, String superName)
+	{
+		poolBytes = new ByteArrayOutputStream();
+		pool = new DataOutputStream(poolBytes);
+		poolIndices = new HashMap<String, Integer>();
+		poolCount = 1;
+		fields = new ArrayList<int[]>();
+		methods = new ArrayList<MethodWriter>();
+		thisClass = classRef(className);
+		superClass = classRef(superName);
+	}
+	
+	/**
+	 * Retrieves the index of a constant pool entry, adding the entry if it is
+	 * not already in the pool.
+	 * 
+	 * @param key a string that identifies the entry
+	 * @param tag the tag of the entry
+	 * @param a the first index (or the value, for an integer)
+	 * @param b the second index, if the entry has one
+	 * @param text the text of a UTF8 entry, or null
+	 * @return the index of the entry
+	 */
+	private int constant(String key, int tag, int a, int b, String text)
+	{
+		Integer index = poolIndices.get(key);
+		if (index != null)
+		{
+			return index;
+		}
+		try
+		{
+			pool.writeByte(tag);
+			switch (tag)
+			{
+				case CONSTANT_UTF8:
+					pool.writeUTF(text);
+					break;
+				case CONSTANT_INTEGER:
+					pool.writeInt(a);
+					break;
+				case CONSTANT_CLASS:
+					pool.writeShort(a);
+					break;
+				default:
+					pool.writeShort(a);
+					pool.writeShort(b);
+					break;
+			}
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException(e);
+		}
+		if (poolCount > 0xFFFF)
+		{
+			throw new IllegalStateException("Too many constants in class file");
+		}
+		poolIndices.put(key, poolCount);
+		return poolCount ++;
+	}
+	
+	/**
+	 * Retrieves the constant pool index of a UTF8 string.
+	 * 
+	 * @param text the string
+	 * @return the index of the string's entry
+	 */
+	public int utf8(String text)
+	{
+		return constant("U" + text, CONSTANT_UTF8, 0, 0, text);
+	}
+	
+	/**
+	 * Retrieves the constant pool index of a class.
+	 * 
+	 * @param name the internal name of the class
+	 * @return the index of the class's entry
+	 */
+	public int classRef(String name)
+	{
+		return constant("C" + name, CONSTANT_CLASS, utf8(name), 0, null);
+	}
+	
+	/**
+	 * Retrieves the constant pool index of an integer.
+	 * 
+	 * @param value the integer
+	 * @return the index of the integer's entry
+	 */
+	public int integer(int value)
+	{
+		return constant("I" + value, CONSTANT_INTEGER, value, 0, null);
+	}
+	
+	/**
+	 * Retrieves the constant pool index of a name and a type descriptor.
+	 * 
+	 * @param name the name of the field or method
+	 * @param desc its type descriptor
+	 * @return the index of the entry
+	 */
+	private int nameAndType(String name, String desc)
+	{
+		return constant("N" + name + " " + desc, CONSTANT_NAME_AND_TYPE, utf8(name), utf8(desc), null);
+	}
+	
+	/**
+	 * Retrieves the constant pool index of a field reference.
+	 * 
+	 * @param owner the internal name of the class that declares the field
+	 * @param name the name of the field
+	 * @param desc the type descriptor of the field
+	 * @return the index of the entry
+	 */
+	public int fieldRef(String owner, String name, String desc)
+	{
+		return constant("F" + owner + "." + name + " " + desc, CONSTANT_FIELDREF, classRef(owner),
+				nameAndType(name, desc), null);
+	}
+	
+	/**
+	 * Retrieves the constant pool index of a method reference.
+	 * 
+	 * @param owner the internal name of the class that declares the method
+	 * @param name the name of the method
+	 * @param desc the type descriptor of the method
+	 * @return the index of the entry
+	 */
+	public int methodRef(String owner, String name, String desc)
+	{
+		return constant("M" + owner + "." + name + desc, CONSTANT_METHODREF, classRef(owner),
+				nameAndType(name, desc), null);
+	}
+	
+	/**
+	 * Adds a field to the class.
+	 * 
+	 * @param access the access flags of the field
+	 * @param name the name of the field
+	 * @param desc the type descriptor of the field
+	 */
+	public void addField(int access, String name, String desc)
+	{
+		fields.add(new int[] {access, utf8(name), utf8(desc)});
+	}
+	
+	/**
+	 * Adds a method to the class. Its code is written with the returned
+	 * MethodWriter, and is finished when toByteArray() is called.
+	 * 
+	 * @param access the access flags of the method
+	 * @param name the name of the method
+	 * @param desc the type descriptor of the method
+	 * @return the MethodWriter for the method's code
+	 */
+	public MethodWriter addMethod(int access, String name, String desc)
+	{
+		MethodWriter m = new MethodWriter(access, name, desc);
+		methods.add(m);
+		return m;
+	}
+	
+	/**
+	 * Counts the number of stack or local variable words taken up by the
+	 * parameters of a method descriptor.
+	 * 
+	 * @param desc the method descriptor
+	 * @return the number of words taken by the parameters
+	 */
+	private static int argumentWords(String desc)
+	{
+		int words = 0;
+		int i = 1;
+		while (desc.charAt(i) != ')')
+		{
+			char c = desc.charAt(i);
+			words += c == 'J' || c == 'D' ? 2 : 1;
+			while (desc.charAt(i) == '[')
+			{
+				i ++;
+			}
+			if (desc.charAt(i) == 'L')
+			{
+				i = desc.indexOf(';', i);
+			}
+			i ++;
+		}
+		return words;
+	}
+	
+	/**
+	 * Counts the number of stack words taken up by a value of a type.
+	 * 
+	 * @param desc the type descriptor, or the return type of a method
+	 * @return 0 for void, 2 for long and double, or 1 for anything else
+	 */
+	private static int typeWords(String desc)
+	{
+		char c = desc.charAt(0);
+		return c == 'V' ? 0 : c == 'J' || c == 'D' ? 2 : 1;
+	}
+	
+	/**
+	 * A MethodWriter writes the bytecode of one method. It keeps track of the
+	 * depth of the operand stack and of the local variables used, so that the
+	 * method's max_stack and max_locals can be filled in. Branches go to
+	 * labels, which are patched once the method is finished.
+	 */
+	public class MethodWriter
+	{
+		private final int access;
+		private final String name;
+		private final int nameIndex;
+		private final int descIndex;
+		private byte[] code;
+		private int length;
+		private int stack;
+		private int maxStack;
+		private int maxLocals;
+		private int[] labels;
+		private int labelCount;
+		private List<int[]> fixups;
+		
+		/**
+		 * Creates a new MethodWriter. The parameters of a static method
+		 * are counted as local variables.
+		 * 
+		 * @param acc the access flags of the method
+		 * @param methodName the name of the method
+		 * @param desc the type descriptor of the method
+		 */
+		private MethodWriter(int acc, String methodName, String desc)
+		{
+			access = acc;
+			name = methodName;
+			nameIndex = utf8(methodName);
+			descIndex = utf8(desc);
+			code = new byte[256];
+			labels = new int[16];
+			fixups = new ArrayList<int[]>();
+			maxLocals = argumentWords(desc) + ((acc & ACC_STATIC) != 0 ? 0 : 1);
+		}
+		
+		/**
+		 * Appends one byte of code.
+		 * 
+		 * @param b the byte
+		 */
+		private void u1(int b)
+		{
+			if (length == code.length)
+			{
+				code = Arrays.copyOf(code, length * 2);
+			}
+			code[length ++] = (byte) b;
+		}
+		
+		/**
+		 * Appends two bytes of code, high byte first.
+		 * 
+		 * @param s the two bytes
+		 */
+		private void u2(int s)
+		{
+			u1(s >> 8);
+			u1(s);
+		}
+		
+		/**
+		 * Records a change in the depth of the operand stack.
+		 * 
+		 * @param change the number of words pushed (or popped, if negative)
+		 */
+		private void adjust(int change)
+		{
+			stack += change;
+			maxStack = Math.max(maxStack, stack);
+		}
+		
+		/**
+		 * Appends an instruction that has no operands.
+		 * 
+		 * @param opcode the opcode
+		 * @param change the change in the depth of the operand stack
+		 */
+		public void op(int opcode, int change)
+		{
+			u1(opcode);
+			adjust(change);
+		}
+		
+		/**
+		 * Appends the shortest instruction that pushes an int constant.
+		 * 
+		 * @param value the constant
+		 */
+		public void iconst(int value)
+		{
+			if (value >= -1 && value <= 5)
+			{
+				u1(ICONST_0 + value);
+			}
+			else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+			{
+				u1(BIPUSH);
+				u1(value);
+			}
+			else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+			{
+				u1(SIPUSH);
+				u2(value);
+			}
+			else
+			{
+				int index = integer(value);
+				if (index <= 0xFF)
+				{
+					u1(LDC);
+					u1(index);
+				}
+				else
+				{
+					u1(LDC_W);
+					u2(index);
+				}
+			}
+			adjust(1);
+		}
+		
+		/**
+		 * Appends an instruction that loads or stores a local variable,
+		 * using the one-byte form for the first four variables and the
+		 * wide form past 255.
+		 * 
+		 * @param opcode ILOAD, ALOAD or ISTORE
+		 * @param index the index of the local variable
+		 */
+		public void local(int opcode, int index)
+		{
+			if (index < 4)
+			{
+				int base = opcode == ISTORE ? 59 : opcode == ALOAD ? 42 : 26;
+				u1(base + index);
+			}
+			else if (index <= 0xFF)
+			{
+				u1(opcode);
+				u1(index);
+			}
+			else
+			{
+				u1(WIDE);
+				u1(opcode);
+				u2(index);
+			}
+			maxLocals = Math.max(maxLocals, index + 1);
+			adjust(opcode == ISTORE ? -1 : 1);
+		}
+		
+		/**
+		 * Appends a GETSTATIC or PUTSTATIC instruction.
+		 * 
+		 * @param opcode GETSTATIC or PUTSTATIC
+		 * @param owner the internal name of the class that declares the field
+		 * @param fieldName the name of the field
+		 * @param desc the type descriptor of the field
+		 */
+		public void field(int opcode, String owner, String fieldName, String desc)
+		{
+			u1(opcode);
+			u2(fieldRef(owner, fieldName, desc));
+			adjust(opcode == GETSTATIC ? typeWords(desc) : -typeWords(desc));
+		}
+		
+		/**
+		 * Appends an INVOKESTATIC or INVOKEVIRTUAL instruction.
+		 * 
+		 * @param opcode INVOKESTATIC or INVOKEVIRTUAL
+		 * @param owner the internal name of the class that declares the method
+		 * @param methodName the name of the method
+		 * @param desc the type descriptor of the method
+		 */
+		public void invoke(int opcode, String owner, String methodName, String desc)
+		{
+			u1(opcode);
+			u2(methodRef(owner, methodName, desc));
+			int receiver = opcode == INVOKESTATIC ? 0 : 1;
+			adjust(typeWords(desc.substring(desc.indexOf(')') + 1)) - argumentWords(desc) - receiver);
+		}
+		
+		/**
+		 * Creates a new label, which can be jumped to before it is marked.
+		 * 
+		 * @return the label
+		 */
+		public int newLabel()
+		{
+			if (labelCount == labels.length)
+			{
+				labels = Arrays.copyOf(labels, labelCount * 2);
+			}
+			labels[labelCount] = -1;
+			return labelCount ++;
+		}
+		
+		/**
+		 * Marks the position of a label at the current end of the code.
+		 * 
+		 * @param label the label
+		 */
+		public void mark(int label)
+		{
+			labels[label] = length;
+		}
+		
+		/**
+		 * Appends a branch to a label. The stack is expected to be empty
+		 * at every branch target, which is how the compiler uses branches.
+		 * 
+		 * @param opcode GOTO or one of the IF_ICMP opcodes
+		 * @param label the label to branch to
+		 */
+		public void jump(int opcode, int label)
+		{
+			fixups.add(new int[] {length, label});
+			u1(opcode);
+			u2(0);
+			adjust(opcode == GOTO ? 0 : -2);
+		}
+		
+		/**
+		 * Writes the method, with its Code attribute, to the class file.
+		 * 
+		 * @param out the stream of the class file
+		 * @throws IOException if the stream cannot be written
+		 */
+		private void write(DataOutputStream out) throws IOException
+		{
+			if (length > 0xFFFF)
+			{
+				throw new IllegalStateException("Method " + name + " is too large to compile");
+			}
+			for (int[] fixup: fixups)
+			{
+				int offset = labels[fixup[1]] - fixup[0];
+				if (labels[fixup[1]] < 0 || offset != (short) offset)
+				{
+					throw new IllegalStateException("Branch out of range in method " + name);
+				}
+				code[fixup[0] + 1] = (byte) (offset >> 8);
+				code[fixup[0] + 2] = (byte) offset;
+			}
+			out.writeShort(access);
+			out.writeShort(nameIndex);
+			out.writeShort(descIndex);
+			out.writeShort(1);
+			out.writeShort(utf8("Code"));
+			out.writeInt(12 + length);
+			out.writeShort(maxStack);
+			out.writeShort(maxLocals);
+			out.writeInt(length);
+			out.write(code, 0, length);
+			out.writeShort(0);
+			out.writeShort(0);
+		}
+	}
+	
+	/**
+	 * Finishes the class and returns the bytes of its class file.
+	 * 
+	 * @return the class file
+	 */
+	public byte[] toByteArray()
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try
+		{
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			DataOutputStream rest = new DataOutputStream(body);
+			rest.writeShort(ACC_PUBLIC | ACC_SUPER);
+			rest.writeShort(thisClass);
+			rest.writeShort(superClass);
+			rest.writeShort(0);
+			rest.writeShort(fields.size());
+			for (int[] f: fields)
+			{
+				rest.writeShort(f[0]);
+				rest.writeShort(f[1]);
+				rest.writeShort(f[2]);
+				rest.writeShort(0);
+			}
+			rest.writeShort(methods.size());
+			for (MethodWriter m: methods)
+			{
+				m.write(rest);
+			}
+			rest.writeShort(0);
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0);
+			out.writeShort(49);
+			out.writeShort(poolCount);
+			poolBytes.writeTo(out);
+			body.writeTo(out);
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException(e);
+		}
+		return bytes.toByteArray();
+	}
+}
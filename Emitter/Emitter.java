@@ -1,6 +1,14 @@
 package emitter;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 import ast.Expression;
 import ast.ProcedureDeclaration;
@@ -8,74 +16,277 @@ import ast.Variable;
 
 public class Emitter
 {
-	private PrintWriter out;
+	private ChannelWriter out;
+	private Path outputPath;
 	private int labelcount;
 	private ProcedureDeclaration pd;
-	private int excessStackHeight;
-	//creates an emitter for writing to a new file with given name
+	private InstructionBuffer code;
+	private PeepholeOptimizer peephole;
+	private Map<String, Integer> frame = new HashMap<String, Integer>();
+	private Map<String, Integer> argRegisters = new HashMap<String, Integer>();
+	private boolean leaf;
+	private int frameSize;
+	private String labelNamespace = "";
+	
+	/**
+	 * The number of registers that expressions can be computed in:
+	 * $t0-$t9 followed by $s0-$s7.
+	 */
+	public static final int REGISTERS = 18;
+	
+	public static final int ZERO = 0;
+	public static final int V0 = 2;
+	public static final int V1 = 3;
+	public static final int A0 = 4;
+	
+	/**
+	 * The number of arguments passed in registers, in $a0-$a3.
+	 */
+	public static final int ARGUMENT_REGISTERS = 4;
+	
+	public static final int SP = 29;
+	public static final int FP = 30;
+	public static final int RA = 31;
+	
+	/**
+	 * The offsets from $fp of the saved $ra, the saved $fp and the return
+	 * value slot in a procedure's frame. The local variables follow below
+	 * the return value slot.
+	 */
+	public static final int RA_OFFSET = -4;
+	public static final int FP_OFFSET = -8;
+	public static final int RETURN_OFFSET = -12;
+	
+	//creates an emitter for writing to a new file with given name.  the
+	//file is only opened when the emitter is closed, so nothing is
+	//created or truncated if compiling fails before then
 	public Emitter(String outputFileName)
 	{
-		try
-		{
-			out = new PrintWriter(new FileWriter(outputFileName), true);
-		}
-		catch(IOException e)
-		{
-			throw new RuntimeException(e);
-		}
+		outputPath = Paths.get(outputFileName);
+		code = new InstructionBuffer();
+		peephole = PeepholeOptimizer.standard();
+	}
+	
+	/**
+	 * Creates an emitter that writes to a channel, such as a file, a socket
+	 * or Channels.newChannel(new ByteArrayOutputStream()) to keep the code
+	 * in memory. The channel is left open when the emitter is closed.
+	 * 
+	 * @param channel the channel that the code is written to
+	 * @param buffer the buffer that the code is collected in on its way to
+	 * 		  the channel, which a caller writing many files can reuse
+	 */
+	public Emitter(WritableByteChannel channel, ByteBuffer buffer)
+	{
+		out = new ChannelWriter(channel, buffer, false);
+		code = new InstructionBuffer();
+		peephole = PeepholeOptimizer.standard();
+	}
+	
+	/**
+	 * Creates an emitter that only collects code in its buffer.
+	 */
+	private Emitter()
+	{
+		code = new InstructionBuffer();
+	}
+	
+	/**
+	 * Creates an emitter that collects the code of one procedure in a buffer
+	 * of its own, so that procedures can be compiled independently, such as
+	 * on different threads. Its labels are named within the procedure's
+	 * namespace (as in "max_endIf1"), so they cannot clash with the labels
+	 * of other procedures, which are numbered independently. The code is
+	 * added to the program by calling append on the program's emitter; a
+	 * procedure emitter is never closed.
+	 * 
+	 * @param proc the procedure that is compiled with the emitter
+	 * @return the new emitter
+	 */
+	public static Emitter forProcedure(ProcedureDeclaration proc)
+	{
+		Emitter e = new Emitter();
+		e.labelNamespace = proc.getProcedureName() + "_";
+		return e;
+	}
+	
+	/**
+	 * Appends the code collected by another emitter, such as one returned by
+	 * forProcedure, to the code of this one.
+	 * 
+	 * @param other the emitter whose code is appended
+	 */
+	public void append(Emitter other)
+	{
+		code.append(other.code);
 	}
 
-	//prints one line of code to file (with non-labels indented)
-	public void emit(String code)
+	//adds one line with no operands to the buffer
+	public void emit(Opcode op)
+	{
+		code.add(op, 0, 0, 0);
+	}
+	
+	//adds one line with one operand to the buffer
+	public void emit(Opcode op, int a)
+	{
+		code.add(op, a, 0, 0);
+	}
+	
+	//adds one line with two operands to the buffer
+	public void emit(Opcode op, int a, int b)
+	{
+		code.add(op, a, b, 0);
+	}
+	
+	//adds one line with three operands to the buffer
+	public void emit(Opcode op, int a, int b, int c)
+	{
+		code.add(op, a, b, c);
+	}
+	
+	//adds a comment line to the buffer
+	public void emitComment(String text)
 	{
-		if (!code.endsWith(":"))
-			code = "\t" + code;
-		out.println(code);
+		code.add(Opcode.COMMENT, code.string(text), 0, 0);
+	}
+	
+	/**
+	 * Returns the symbol id of a variable, procedure or label name, for use
+	 * as an operand.
+	 * 
+	 * @param name the name
+	 * @return the symbol id
+	 */
+	public int symbol(String name)
+	{
+		return code.symbol(name);
+	}
+	
+	/**
+	 * Returns the string id of a string constant, for use as an operand.
+	 * 
+	 * @param text the text of the string
+	 * @return the string id
+	 */
+	public int string(String text)
+	{
+		return code.string(text);
+	}
+	
+	/**
+	 * Creates a new label for an if or while statement, named by a prefix
+	 * followed by the next label ID, within the emitter's label namespace.
+	 * 
+	 * @param prefix the prefix, such as "endIf"
+	 * @return the symbol id of the label
+	 */
+	public int newLabel(String prefix)
+	{
+		return code.symbol(labelNamespace + prefix, nextLabelID());
+	}
+	
+	/**
+	 * Returns the buffer that the code is collected in.
+	 * 
+	 * @return the InstructionBuffer
+	 */
+	public InstructionBuffer getInstructions()
+	{
+		return code;
 	}
 
-	//closes the file.  should be called after all calls to emit.
+	//runs the peephole passes over the buffered code, writes it out and
+	//flushes it, opening and then closing the file if the emitter was
+	//given a file name.  the file is closed even if writing fails, and is
+	//deleted then, so a partial file is never left behind.  should be
+	//called after all calls to emit.
 	public void close()
 	{
-		out.close();
+		peephole.optimize(code);
+		try
+		{
+			if (out == null)
+			{
+				out = new ChannelWriter(FileChannel.open(outputPath,
+						StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING));
+			}
+			try
+			{
+				code.write(out);
+			}
+			finally
+			{
+				out.close();
+			}
+		}
+		catch(IOException | RuntimeException e)
+		{
+			if (outputPath != null)
+			{
+				outputPath.toFile().delete();
+			}
+			throw e instanceof IOException ? new RuntimeException(e) : (RuntimeException) e;
+		}
+	}
+	
+	/**
+	 * Returns the PeepholeOptimizer that runs over the code when the Emitter
+	 * is closed, so that passes can be added or cleared, and so that the
+	 * number of instructions each pass removed can be reported afterwards.
+	 * 
+	 * @return the PeepholeOptimizer
+	 */
+	public PeepholeOptimizer getPeepholeOptimizer()
+	{
+		return peephole;
 	}
 	
 	/**
 	 * Pushes the value of $v0 onto the stack by subtracting 4 from
 	 * the stack pointer ($sp) and storing the value of $v0 in
-	 * the new address. Also increments the excessStackHeight by 1
-	 * because one more value has been added onto the stack on top
-	 * of the parameters of the procedure.
+	 * the new address. Local variables are addressed from $fp, so
+	 * pushing does not change their offsets.
 	 * 
 	 * @param reg the register whose value should be pushed onto the stack
 	 *        (usually this is $v0)
 	 */
-	public void emitPush(String reg)
+	public void emitPush(int reg)
 	{
-		emit("subu $sp, $sp, 4		#push " + reg);
-		emit("sw " + reg + ", ($sp)");
-		if (pd != null)
-		{
-			excessStackHeight ++;
-		}
+		emit(Opcode.ADDIU, SP, SP, -4);
+		emit(Opcode.SW, reg, 0, SP);
 	}
 	
 	/**
 	 * Pops the value on the stack by loading the value
 	 * at the memory address of the stack pointer into the register.
 	 * Then, the stack pointer address is incremented by four to simulate
-	 * popping the value off of the stack. Also decrements the excessStackHeight by 1
-	 * because one less value exists on the stack on top of the parameters of the procedure.
+	 * popping the value off of the stack.
 	 * 
 	 * @param reg the register where the value on the stack is moved to
 	 */
-	public void emitPop(String reg)
+	public void emitPop(int reg)
+	{
+		emit(Opcode.LW, reg, 0, SP);
+		emit(Opcode.ADDIU, SP, SP, 4);
+	}
+	
+	/**
+	 * Returns the number of one of the registers that expressions are
+	 * computed in. Registers 0 to 9 are $t0-$t9 and registers 10 to 17 are
+	 * $s0-$s7.
+	 * 
+	 * @param index the index of the register, from 0 to REGISTERS - 1
+	 * @return the register number
+	 */
+	public static int register(int index)
 	{
-		emit("lw " + reg + ", ($sp)		#pop " + reg);
-		emit("addu $sp, $sp, 4");
-		if (pd != null)
+		if (index < 8)
 		{
-			excessStackHeight --;
+			return 8 + index;
 		}
+		return index < 10 ? 16 + index : 6 + index;
 	}
 	
 	/**
@@ -98,7 +309,23 @@ public class Emitter
 	/**
 	 * Sets the current procedure context
 	 * by setting the instance ProcedureDeclaration to the
-	 * ProcedureDeclaration that is taken in.
+	 * ProcedureDeclaration that is taken in. The layout of the procedure's
+	 * frame is worked out once here, as a table from each local name to its
+	 * offset from $fp or its register, so that looking up a local variable
+	 * takes one hash lookup.
+	 * 
+	 * The first four arguments arrive in $a0-$a3 and the rest on the stack.
+	 * $fp points just above the frame, at the last stack argument; the
+	 * other stack arguments are above it, and below it are the saved $ra,
+	 * the saved $fp, the return value slot, the local variables and, unless
+	 * the procedure is a leaf, the register arguments, which are stored
+	 * there so that calls can reuse $a0-$a3. A leaf procedure, which calls
+	 * no procedure and makes no syscall, keeps them in their registers.
+	 * 
+	 * Names are resolved in the same order as the SlotResolver: a repeated
+	 * parameter name refers to the last parameter with that name, and the
+	 * procedure's name and local variables only get their own slots if no
+	 * parameter has the same name.
 	 * 
 	 * @param proc the ProcedureDeclaration that should be
 	 *        remembered as the current procedure context
@@ -106,7 +333,91 @@ public class Emitter
 	public void setProcedureContext(ProcedureDeclaration proc)
 	{
 		pd = proc;
-		excessStackHeight = 0;
+		frame.clear();
+		argRegisters.clear();
+		leaf = !proc.getStatement().hasCall();
+		List<Expression> params = proc.getParams();
+		List<Expression> localVars = proc.getLocalVars();
+		int stored = leaf ? 0 : Math.min(params.size(), ARGUMENT_REGISTERS);
+		frameSize = -RETURN_OFFSET + 4*localVars.size() + 4*stored;
+		for (int i = 0; i < params.size(); i ++)
+		{
+			String name = ((Variable)params.get(i)).getName();
+			frame.remove(name);
+			argRegisters.remove(name);
+			if (i >= ARGUMENT_REGISTERS)
+			{
+				frame.put(name, 4*(params.size() - 1 - i));
+			}
+			else if (leaf)
+			{
+				argRegisters.put(name, A0 + i);
+			}
+			else
+			{
+				frame.put(name, getArgumentOffset(i));
+			}
+		}
+		if (!isLocalVariable(proc.getProcedureName()))
+		{
+			frame.put(proc.getProcedureName(), RETURN_OFFSET);
+		}
+		for (int i = 0; i < localVars.size(); i ++)
+		{
+			String name = ((Variable)localVars.get(i)).getName();
+			if (!isLocalVariable(name))
+			{
+				frame.put(name, RETURN_OFFSET - 4*(i + 1));
+			}
+		}
+	}
+	
+	/**
+	 * Determines whether the current procedure is a leaf procedure, which
+	 * calls no procedure and makes no syscall, so that it does not need to
+	 * save $ra or store its register arguments.
+	 * 
+	 * @return true if the current procedure is a leaf; otherwise, false
+	 */
+	public boolean isLeafProcedure()
+	{
+		return leaf;
+	}
+	
+	/**
+	 * Returns the size of the current procedure's frame: the bytes between
+	 * $fp and $sp after its prologue.
+	 * 
+	 * @return the size of the frame in bytes
+	 */
+	public int getFrameSize()
+	{
+		return frameSize;
+	}
+	
+	/**
+	 * Returns the offset from $fp where a non-leaf procedure stores one of
+	 * its register arguments, below its local variables.
+	 * 
+	 * @param index the index of the argument, from 0 to ARGUMENT_REGISTERS - 1
+	 * @return the offset from $fp
+	 */
+	public int getArgumentOffset(int index)
+	{
+		return RETURN_OFFSET - 4*(pd.getLocalVars().size() + 1 + index);
+	}
+	
+	/**
+	 * Returns the register that holds a local variable, if it is a
+	 * parameter that a leaf procedure keeps in its argument register.
+	 * 
+	 * @param varName the name of the variable
+	 * @return the register number, or -1 if the variable is not in a register
+	 */
+	public int getRegister(String varName)
+	{
+		Integer reg = argRegisters.get(varName);
+		return reg == null ? -1 : reg;
 	}
 	
 	/**
@@ -116,79 +427,38 @@ public class Emitter
 	public void clearProcedureContext()
 	{
 		pd = null;
+		frame.clear();
+		argRegisters.clear();
 	}
 	
 	/**
 	 * Determines whether a certain variable name
 	 * corresponds to a local variable (which means that it's the
-	 * name of one of the current procedure declaration's parameter names)
-	 * or a global variable.
+	 * name of one of the current procedure declaration's parameters or
+	 * local variables, or the procedure's own name) or a global variable.
 	 * 
 	 * @param varName the name of the variable
 	 * @return true if the name belongs to a local variable; otherwise, false
 	 */
 	public boolean isLocalVariable(String varName)
 	{
-		if (varName.equals(pd.getProcedureName()))
-		{
-			return true;
-		}
-		for (Expression exp: pd.getParams())
-		{
-			if (((Variable)exp).getName().equals(varName))
-			{
-				return true;
-			}
-		}
-		for (Expression exp: pd.getLocalVars())
-		{
-			if (((Variable)exp).getName().equals(varName))
-			{
-				return true;
-			}
-		}
-		return false;
+		return frame.containsKey(varName) || argRegisters.containsKey(varName);
 	}
 	
 	/**
 	 * Calculates the offset of a certain local variable in the stack,
-	 * meaning how far it is from $sp on the stack. If this variable is
-	 * one of the ProcedureDeclaration's parameters, then its offset
-	 * depends on its position in the list of parameters, the number of
-	 * non-parameter local variables (as these are also pushed onto the stack), and
-	 * finally, the excessStackHeight(number of values pushed on top of the stack for calculations).
-	 * For other local variables that are declared with a "VAR ..." statement prior to
-	 * the Statement body of the ProcedureDeclaration, their offset is based only
-	 * on their position in the list of local variables and the excessStackHeight.
+	 * meaning how far it is from $fp, as laid out by setProcedureContext.
+	 * The offset stays the same however many values are pushed for
+	 * calculations.
 	 * 
 	 * @param localVarName the name of the local variable whose offset
 	 * needs to be found
 	 * @precondition localVarName is the name of a local variable for the 
-	 * procedure currently being compiled
-	 * @return the offset from $sp for a given local variable
+	 * procedure currently being compiled that is not kept in a register
+	 * @return the offset from $fp for a given local variable
 	 */
 	public int getOffSet(String localVarName)
 	{
-		int offSet = 0;
-		List<Expression> localVars = pd.getLocalVars();
-		for (int i = 0; i < localVars.size(); i ++)
-		{
-			if (((Variable)localVars.get(i)).getName().equals(localVarName))
-			{
-				return 4*excessStackHeight + 4*i;
-			}
-		}
-		int size = pd.getParams().size();
-		int maxOffset = 4*(size-1);
-		for (int i = 0; i < size; i ++)
-		{
-			if (((Variable)pd.getParams().get(i)).getName().equals(localVarName))
-			{
-				offSet = 4*(pd.getLocalVars().size()) + 4 +(maxOffset - 4*i);
-				//System.out.println("localVarName, excessStackHeight: " + excessStackHeight + ", offSet: " + offSet);
-				return offSet + 4*excessStackHeight;
-			}
-		}
-		return 0;
+		return frame.get(localVarName);
 	}
-}
\ No newline at end of file
+}
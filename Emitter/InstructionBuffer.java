@@ -0,0 +1,468 @@
+package emitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An InstructionBuffer holds MIPS code as a compact intermediate form: each
+ * line is an Opcode and three operand ints, stored one after the other in
+ * a growable int array. Names that appear in the code, such as variables
+ * and labels, are interned once as symbol ids, and comments and string
+ * constants as string ids, so appending an instruction allocates nothing.
+ * Peephole passes work on the buffer directly, and write() is the one
+ * place where the code is turned into MIPS text.
+ * 
+ * Removing an instruction only marks it as REMOVED; compact() drops the
+ * removed lines once a pass is done.
+ * 
+ * @author Ashwin Rammohan
+ * @version October 17, 2026
+ *
+ */
+public class InstructionBuffer
+{
+	private static final String[] REGISTER_NAMES = {
+		"$zero", "$at", "$v0", "$v1", "$a0", "$a1", "$a2", "$a3",
+		"$t0", "$t1", "$t2", "$t3", "$t4", "$t5", "$t6", "$t7",
+		"$s0", "$s1", "$s2", "$s3", "$s4", "$s5", "$s6", "$s7",
+		"$t8", "$t9", "$k0", "$k1", "$gp", "$sp", "$fp", "$ra"
+	};
+	
+	private int[] words;
+	private int size;
+	private List<String> symbols;
+	private int[] symbolNumbers;
+	private Map<String, Integer> symbolIds;
+	private List<String> strings;
+	private Map<String, Integer> stringIds;
+	
+	/**
+	 * Creates an empty InstructionBuffer.
+	 */
+	public InstructionBuffer()
+	{
+		words = new int[4 * 256];
+		symbols = new ArrayList<String>();
+		symbolNumbers = new int[64];
+		symbolIds = new HashMap<String, Integer>();
+		strings = new ArrayList<String>();
+		stringIds = new HashMap<String, Integer>();
+	}
+	
+	/**
+	 * Returns the name of a register.
+	 * 
+	 * @param reg the register number, from 0 to 31
+	 * @return the name, such as "$t0"
+	 */
+	public static String registerName(int reg)
+	{
+		return REGISTER_NAMES[reg];
+	}
+	
+	/**
+	 * Appends a line to the buffer.
+	 * 
+	 * @param op the Opcode
+	 * @param a the first operand
+	 * @param b the second operand
+	 * @param c the third operand
+	 */
+	public void add(Opcode op, int a, int b, int c)
+	{
+		if (4 * size == words.length)
+		{
+			words = Arrays.copyOf(words, 2 * words.length);
+		}
+		int i = 4 * size;
+		words[i] = op.ordinal();
+		words[i + 1] = a;
+		words[i + 2] = b;
+		words[i + 3] = c;
+		size ++;
+	}
+	
+	/**
+	 * Returns the number of lines in the buffer, including removed ones
+	 * that have not been compacted away.
+	 * 
+	 * @return the number of lines
+	 */
+	public int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * Returns the Opcode of a line.
+	 * 
+	 * @param i the index of the line
+	 * @return the Opcode
+	 */
+	public Opcode op(int i)
+	{
+		return Opcode.of(words[4 * i]);
+	}
+	
+	/**
+	 * Returns the first operand of a line.
+	 * 
+	 * @param i the index of the line
+	 * @return the operand
+	 */
+	public int a(int i)
+	{
+		return words[4 * i + 1];
+	}
+	
+	/**
+	 * Returns the second operand of a line.
+	 * 
+	 * @param i the index of the line
+	 * @return the operand
+	 */
+	public int b(int i)
+	{
+		return words[4 * i + 2];
+	}
+	
+	/**
+	 * Returns the third operand of a line.
+	 * 
+	 * @param i the index of the line
+	 * @return the operand
+	 */
+	public int c(int i)
+	{
+		return words[4 * i + 3];
+	}
+	
+	/**
+	 * Replaces a line.
+	 * 
+	 * @param i the index of the line
+	 * @param op the new Opcode
+	 * @param a the new first operand
+	 * @param b the new second operand
+	 * @param c the new third operand
+	 */
+	public void set(int i, Opcode op, int a, int b, int c)
+	{
+		words[4 * i] = op.ordinal();
+		words[4 * i + 1] = a;
+		words[4 * i + 2] = b;
+		words[4 * i + 3] = c;
+	}
+	
+	/**
+	 * Marks a line as removed.
+	 * 
+	 * @param i the index of the line
+	 */
+	public void remove(int i)
+	{
+		words[4 * i] = Opcode.REMOVED.ordinal();
+	}
+	
+	/**
+	 * Drops the removed lines from the buffer.
+	 */
+	public void compact()
+	{
+		int n = 0;
+		for (int i = 0; i < size; i ++)
+		{
+			if (words[4 * i] != Opcode.REMOVED.ordinal())
+			{
+				System.arraycopy(words, 4 * i, words, 4 * n, 4);
+				n ++;
+			}
+		}
+		size = n;
+	}
+	
+	/**
+	 * Finds the next line after a given one that is an instruction or a
+	 * label, skipping comments and removed lines.
+	 * 
+	 * @param i the index of the line to start after
+	 * @return the index of the next instruction or label, or size()
+	 */
+	public int next(int i)
+	{
+		i ++;
+		while (i < size && !op(i).isInstruction() && op(i) != Opcode.LABEL)
+		{
+			i ++;
+		}
+		return i;
+	}
+	
+	/**
+	 * Determines whether a line is a given Opcode; the index may be size().
+	 * 
+	 * @param i the index of the line
+	 * @param op the Opcode
+	 * @return true if the line exists and has the Opcode; otherwise, false
+	 */
+	public boolean is(int i, Opcode op)
+	{
+		return i < size && words[4 * i] == op.ordinal();
+	}
+	
+	/**
+	 * Returns the id of a name, interning it the first time it is seen.
+	 * 
+	 * @param name the name of a variable, procedure or label
+	 * @return the symbol id
+	 */
+	public int symbol(String name)
+	{
+		Integer id = symbolIds.get(name);
+		if (id == null)
+		{
+			id = addSymbol(name, 0);
+			symbolIds.put(name, id);
+		}
+		return id;
+	}
+	
+	/**
+	 * Creates a new symbol that is written as a prefix followed by a
+	 * number, such as a label for an IF or WHILE statement. The name is
+	 * only built when the code is written.
+	 * 
+	 * @param prefix the prefix of the name
+	 * @param number the number that follows the prefix, which is positive
+	 * @return the symbol id
+	 */
+	public int symbol(String prefix, int number)
+	{
+		return addSymbol(prefix, number);
+	}
+	
+	/**
+	 * Adds an entry to the symbol table.
+	 * 
+	 * @param name the name, or its prefix
+	 * @param number the number that follows the prefix, or 0 if there is none
+	 * @return the symbol id
+	 */
+	private int addSymbol(String name, int number)
+	{
+		int id = symbols.size();
+		symbols.add(name);
+		if (id == symbolNumbers.length)
+		{
+			symbolNumbers = Arrays.copyOf(symbolNumbers, 2 * id);
+		}
+		symbolNumbers[id] = number;
+		return id;
+	}
+	
+	/**
+	 * Returns the id of a comment or string constant, interning it.
+	 * 
+	 * @param text the text
+	 * @return the string id
+	 */
+	public int string(String text)
+	{
+		Integer id = stringIds.get(text);
+		if (id == null)
+		{
+			id = strings.size();
+			strings.add(text);
+			stringIds.put(text, id);
+		}
+		return id;
+	}
+	
+	/**
+	 * Appends all the lines of another buffer to this one, such as the code
+	 * of a procedure that was compiled on its own. The other buffer's symbols
+	 * and strings are interned here: a named symbol becomes the symbol of the
+	 * same name, so calls and variables line up, while each numbered label
+	 * gets a new symbol that is written the same way as before.
+	 * 
+	 * @param other the buffer whose lines are appended
+	 */
+	public void append(InstructionBuffer other)
+	{
+		int[] symbolMap = new int[other.symbols.size()];
+		for (int id = 0; id < symbolMap.length; id ++)
+		{
+			String name = other.symbols.get(id);
+			int number = other.symbolNumbers[id];
+			symbolMap[id] = number == 0 ? symbol(name) : addSymbol(name, number);
+		}
+		int[] stringMap = new int[other.strings.size()];
+		for (int id = 0; id < stringMap.length; id ++)
+		{
+			stringMap[id] = string(other.strings.get(id));
+		}
+		for (int i = 0; i < other.size; i ++)
+		{
+			Opcode op = other.op(i);
+			int a = other.a(i);
+			int b = other.b(i);
+			int c = other.c(i);
+			switch (op.getFormat())
+			{
+				case LABEL:
+				case GLOBL:
+				case WORD:
+				case JUMP:
+					a = symbolMap[a];
+					break;
+				case ASCIIZ:
+					a = symbolMap[a];
+					b = stringMap[b];
+					break;
+				case COMMENT:
+					a = stringMap[a];
+					break;
+				case SYM:
+					b = symbolMap[b];
+					break;
+				case BRANCH:
+					c = symbolMap[c];
+					break;
+				default:
+					break;
+			}
+			add(op, a, b, c);
+		}
+	}
+	
+	/**
+	 * Writes a symbol's name.
+	 * 
+	 * @param out where the name is written
+	 * @param id the symbol id
+	 * @throws IOException if out cannot be written
+	 */
+	private void writeSymbol(Appendable out, int id) throws IOException
+	{
+		out.append(symbols.get(id));
+		if (symbolNumbers[id] != 0)
+		{
+			out.append(Integer.toString(symbolNumbers[id]));
+		}
+	}
+	
+	/**
+	 * Writes the code as MIPS assembly, one line at a time, with every line
+	 * but labels indented by a tab.
+	 * 
+	 * @param out where the code is written
+	 * @throws IOException if out cannot be written
+	 */
+	public void write(Appendable out) throws IOException
+	{
+		for (int i = 0; i < size; i ++)
+		{
+			Opcode op = op(i);
+			int a = a(i);
+			int b = b(i);
+			int c = c(i);
+			switch (op.getFormat())
+			{
+				case REMOVED:
+					continue;
+				case LABEL:
+					writeSymbol(out, a);
+					out.append(':');
+					break;
+				case COMMENT:
+					out.append("\t# ").append(strings.get(a));
+					break;
+				case DIRECTIVE:
+					out.append('\t').append(op.getMnemonic());
+					break;
+				case GLOBL:
+					out.append('\t').append(op.getMnemonic()).append(' ');
+					writeSymbol(out, a);
+					break;
+				case WORD:
+					out.append('\t');
+					writeSymbol(out, a);
+					out.append(": ").append(op.getMnemonic()).append(' ').append(Integer.toString(b));
+					break;
+				case ASCIIZ:
+					out.append('\t');
+					writeSymbol(out, a);
+					out.append(": ").append(op.getMnemonic()).append(" \"").append(strings.get(b))
+						.append('"');
+					break;
+				default:
+					out.append('\t').append(op.getMnemonic());
+					writeOperands(out, op.getFormat(), a, b, c);
+					break;
+			}
+			out.append('\n');
+		}
+	}
+	
+	/**
+	 * Writes the operands of an instruction.
+	 * 
+	 * @param out where the operands are written
+	 * @param format the format of the instruction
+	 * @param a the first operand
+	 * @param b the second operand
+	 * @param c the third operand
+	 * @throws IOException if out cannot be written
+	 */
+	private void writeOperands(Appendable out, Opcode.FORMAT format, int a, int b, int c)
+			throws IOException
+	{
+		switch (format)
+		{
+			case REG:
+				out.append(' ').append(REGISTER_NAMES[a]);
+				break;
+			case REG_REG:
+				out.append(' ').append(REGISTER_NAMES[a]).append(", ").append(REGISTER_NAMES[b]);
+				break;
+			case REG_REG_REG:
+				out.append(' ').append(REGISTER_NAMES[a]).append(", ").append(REGISTER_NAMES[b])
+					.append(", ").append(REGISTER_NAMES[c]);
+				break;
+			case REG_IMM:
+				out.append(' ').append(REGISTER_NAMES[a]).append(", ").append(Integer.toString(b));
+				break;
+			case REG_REG_IMM:
+				out.append(' ').append(REGISTER_NAMES[a]).append(", ").append(REGISTER_NAMES[b])
+					.append(", ").append(Integer.toString(c));
+				break;
+			case MEM:
+				out.append(' ').append(REGISTER_NAMES[a]).append(", ");
+				if (b != 0)
+				{
+					out.append(Integer.toString(b));
+				}
+				out.append('(').append(REGISTER_NAMES[c]).append(')');
+				break;
+			case SYM:
+				out.append(' ').append(REGISTER_NAMES[a]).append(", ");
+				writeSymbol(out, b);
+				break;
+			case BRANCH:
+				out.append(' ').append(REGISTER_NAMES[a]).append(", ").append(REGISTER_NAMES[b])
+					.append(", ");
+				writeSymbol(out, c);
+				break;
+			case JUMP:
+				out.append(' ');
+				writeSymbol(out, a);
+				break;
+			default:
+				break;
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package emitter;
+
+/**
+ * An Opcode is one kind of line in an InstructionBuffer: a MIPS
+ * instruction, a label, a comment or an assembler directive. Each Opcode
+ * knows its mnemonic and the format of its operands, which say how the
+ * three operand ints of an instruction are read and written out.
+ * 
+ * @author Ashwin Rammohan
+ * @version October 17, 2026
+ *
+ */
+public enum Opcode
+{
+	LI("li", FORMAT.REG_IMM),
+	LA("la", FORMAT.MEM),
+	LA_SYM("la", FORMAT.SYM),
+	LW("lw", FORMAT.MEM),
+	LW_SYM("lw", FORMAT.SYM),
+	SW("sw", FORMAT.MEM),
+	SW_SYM("sw", FORMAT.SYM),
+	MOVE("move", FORMAT.REG_REG),
+	ADDU("addu", FORMAT.REG_REG_REG),
+	SUBU("subu", FORMAT.REG_REG_REG),
+	ADDIU("addiu", FORMAT.REG_REG_IMM),
+	MULT("mult", FORMAT.REG_REG),
+	DIV("div", FORMAT.REG_REG),
+	MFLO("mflo", FORMAT.REG),
+	MFHI("mfhi", FORMAT.REG),
+	BEQ("beq", FORMAT.BRANCH),
+	BNE("bne", FORMAT.BRANCH),
+	BLT("blt", FORMAT.BRANCH),
+	BGE("bge", FORMAT.BRANCH),
+	BGT("bgt", FORMAT.BRANCH),
+	BLE("ble", FORMAT.BRANCH),
+	J("j", FORMAT.JUMP),
+	JAL("jal", FORMAT.JUMP),
+	JR("jr", FORMAT.REG),
+	SYSCALL("syscall", FORMAT.NONE),
+	LABEL("", FORMAT.LABEL),
+	COMMENT("#", FORMAT.COMMENT),
+	DATA(".data", FORMAT.DIRECTIVE),
+	TEXT(".text", FORMAT.DIRECTIVE),
+	GLOBL(".globl", FORMAT.GLOBL),
+	WORD(".word", FORMAT.WORD),
+	ASCIIZ(".asciiz", FORMAT.ASCIIZ),
+	REMOVED("", FORMAT.REMOVED);
+	
+	/**
+	 * The ways in which the operands of an Opcode are laid out. Registers
+	 * are register numbers, IMM operands are values, SYM operands and labels
+	 * are symbol ids, and strings are string ids of the InstructionBuffer.
+	 * MEM operands are a register, an offset and a base register.
+	 */
+	public static enum FORMAT
+	{
+		NONE, REG, REG_REG, REG_REG_REG, REG_IMM, REG_REG_IMM, MEM, SYM, BRANCH,
+		JUMP, LABEL, COMMENT, DIRECTIVE, GLOBL, WORD, ASCIIZ, REMOVED
+	}
+	
+	private static final Opcode[] VALUES = values();
+	
+	private final String mnemonic;
+	private final FORMAT format;
+	
+	/**
+	 * Creates an Opcode.
+	 * 
+	 * @param mnemonic the text written for the Opcode
+	 * @param format the layout of the Opcode's operands
+	 */
+	private Opcode(String mnemonic, FORMAT format)
+	{
+		this.mnemonic = mnemonic;
+		this.format = format;
+	}
+	
+	/**
+	 * Returns the text written for this Opcode.
+	 * 
+	 * @return the mnemonic
+	 */
+	public String getMnemonic()
+	{
+		return mnemonic;
+	}
+	
+	/**
+	 * Returns the layout of this Opcode's operands.
+	 * 
+	 * @return the format
+	 */
+	public FORMAT getFormat()
+	{
+		return format;
+	}
+	
+	/**
+	 * Determines whether this Opcode is an instruction that is executed,
+	 * rather than a label, comment, directive or removed instruction.
+	 * 
+	 * @return true if this Opcode is an instruction; otherwise, false
+	 */
+	public boolean isInstruction()
+	{
+		return ordinal() <= SYSCALL.ordinal();
+	}
+	
+	/**
+	 * Determines whether this instruction writes the register given as its
+	 * first operand.
+	 * 
+	 * @return true if the first operand is written; otherwise, false
+	 */
+	public boolean writesFirstOperand()
+	{
+		switch (this)
+		{
+			case LI: case LA: case LA_SYM: case LW: case LW_SYM: case MOVE:
+			case ADDU: case SUBU: case ADDIU: case MFLO: case MFHI:
+				return true;
+			default:
+				return false;
+		}
+	}
+	
+	/**
+	 * Returns the branch that is taken exactly when this one is not.
+	 * 
+	 * @return the opposite branch, or null if this Opcode is not a branch
+	 */
+	public Opcode opposite()
+	{
+		switch (this)
+		{
+			case BEQ:
+				return BNE;
+			case BNE:
+				return BEQ;
+			case BLT:
+				return BGE;
+			case BGE:
+				return BLT;
+			case BGT:
+				return BLE;
+			case BLE:
+				return BGT;
+			default:
+				return null;
+		}
+	}
+	
+	/**
+	 * Looks up an Opcode by its ordinal, without copying the array of values.
+	 * 
+	 * @param ordinal the ordinal
+	 * @return the Opcode
+	 */
+	public static Opcode of(int ordinal)
+	{
+		return VALUES[ordinal];
+	}
+}
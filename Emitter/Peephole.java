@@ -0,0 +1,29 @@
+package emitter;
+
+/**
+ * A Peephole is one pass of a PeepholeOptimizer. It looks at short
+ * sequences of MIPS instructions in the Emitter's buffer and replaces them
+ * with shorter sequences that do the same thing.
+ * 
+ * @author Ashwin Rammohan
+ * @version October 17, 2026
+ *
+ */
+public interface Peephole
+{
+	/**
+	 * Returns the name of this pass, as shown in the optimizer's report.
+	 * 
+	 * @return the name of the pass
+	 */
+	String getName();
+	
+	/**
+	 * Rewrites the buffered code in place. Instructions are removed with
+	 * InstructionBuffer.remove, and the buffer is compacted after the pass.
+	 * 
+	 * @param code the buffered MIPS code
+	 * @return the number of instructions removed
+	 */
+	int apply(InstructionBuffer code);
+}
@@ -0,0 +1,386 @@
+package emitter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A PeepholeOptimizer runs a list of Peephole passes over the MIPS code
+ * buffered by an Emitter until none of them can remove any more
+ * instructions, and counts how many instructions each pass removed.
+ * 
+ * The standard passes are:
+ * PushPop, which turns a push immediately followed by a pop into a move;
+ * LoadAddress, which fuses "la r, x" and "lw r, (r)" into "lw r, x";
+ * RedundantLoadImmediate, which drops an li of a value that the register
+ * is already known to hold; and
+ * BranchOverJump, which turns a branch over an unconditional jump into the
+ * opposite branch, and drops jumps to the label that follows them.
+ * 
+ * @author Ashwin Rammohan
+ * @version October 17, 2026
+ *
+ */
+public class PeepholeOptimizer
+{
+	private List<Peephole> passes;
+	private Map<String, Integer> removed;
+	
+	/**
+	 * Creates a PeepholeOptimizer with no passes.
+	 */
+	public PeepholeOptimizer()
+	{
+		passes = new ArrayList<Peephole>();
+		removed = new LinkedHashMap<String, Integer>();
+	}
+	
+	/**
+	 * Creates a PeepholeOptimizer with the standard passes.
+	 * 
+	 * @return the PeepholeOptimizer
+	 */
+	public static PeepholeOptimizer standard()
+	{
+		PeepholeOptimizer opt = new PeepholeOptimizer();
+		opt.add(new PushPop());
+		opt.add(new LoadAddress());
+		opt.add(new RedundantLoadImmediate());
+		opt.add(new BranchOverJump());
+		return opt;
+	}
+	
+	/**
+	 * Adds a pass, which runs after the passes added before it.
+	 * 
+	 * @param pass the pass
+	 */
+	public void add(Peephole pass)
+	{
+		passes.add(pass);
+		removed.put(pass.getName(), 0);
+	}
+	
+	/**
+	 * Removes every pass, so that code is written as it was emitted.
+	 */
+	public void clear()
+	{
+		passes.clear();
+		removed.clear();
+	}
+	
+	/**
+	 * Runs the passes over the code until none of them removes an
+	 * instruction.
+	 * 
+	 * @param code the buffered MIPS code
+	 */
+	public void optimize(InstructionBuffer code)
+	{
+		boolean changed = true;
+		while (changed)
+		{
+			changed = false;
+			for (Peephole pass: passes)
+			{
+				int n = pass.apply(code);
+				code.compact();
+				if (n > 0)
+				{
+					removed.put(pass.getName(), removed.get(pass.getName()) + n);
+					changed = true;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns the number of instructions removed by each pass.
+	 * 
+	 * @return a map from the name of each pass to its count, in the order
+	 * 		   the passes run
+	 */
+	public Map<String, Integer> getRemoved()
+	{
+		return removed;
+	}
+	
+	/**
+	 * Returns the total number of instructions removed by all passes.
+	 * 
+	 * @return the number of instructions removed
+	 */
+	public int getTotalRemoved()
+	{
+		int total = 0;
+		for (int n: removed.values())
+		{
+			total += n;
+		}
+		return total;
+	}
+	
+	/**
+	 * Returns a one-line report of the instructions removed.
+	 * 
+	 * @return the report
+	 */
+	public String toString()
+	{
+		return "peephole removed " + getTotalRemoved() + " instructions " + removed;
+	}
+	
+	/**
+	 * Replaces a push of one register followed directly by a pop into
+	 * another with a move, or with nothing if they are the same register.
+	 */
+	public static class PushPop implements Peephole
+	{
+		/**
+		 * Returns the name of this pass.
+		 * 
+		 * @return "push/pop"
+		 */
+		public String getName()
+		{
+			return "push/pop";
+		}
+		
+		/**
+		 * Rewrites each push followed by a pop.
+		 * 
+		 * @param code the buffered MIPS code
+		 * @return the number of instructions removed
+		 */
+		public int apply(InstructionBuffer code)
+		{
+			int count = 0;
+			for (int i = 0; i < code.size(); i ++)
+			{
+				if (!isStackAdjust(code, i, -4))
+				{
+					continue;
+				}
+				int store = code.next(i);
+				int load = code.next(store);
+				int pop = code.next(load);
+				if (isTopOfStack(code, store, Opcode.SW) && isTopOfStack(code, load, Opcode.LW)
+						&& isStackAdjust(code, pop, 4))
+				{
+					int from = code.a(store);
+					int to = code.a(load);
+					code.remove(pop);
+					code.remove(load);
+					code.remove(store);
+					if (from == to)
+					{
+						code.remove(i);
+						count += 4;
+					}
+					else
+					{
+						code.set(i, Opcode.MOVE, to, from, 0);
+						count += 3;
+					}
+				}
+			}
+			return count;
+		}
+		
+		/**
+		 * Determines whether a line moves the stack pointer by an amount.
+		 * 
+		 * @param code the buffered MIPS code
+		 * @param i the index of the line, which may be code.size()
+		 * @param amount the amount added to $sp
+		 * @return true if the line is "addiu $sp, $sp, amount"; otherwise, false
+		 */
+		private static boolean isStackAdjust(InstructionBuffer code, int i, int amount)
+		{
+			return code.is(i, Opcode.ADDIU) && code.a(i) == Emitter.SP
+					&& code.b(i) == Emitter.SP && code.c(i) == amount;
+		}
+		
+		/**
+		 * Determines whether a line stores or loads the word on top of the stack.
+		 * 
+		 * @param code the buffered MIPS code
+		 * @param i the index of the line, which may be code.size()
+		 * @param op SW or LW
+		 * @return true if the line is "op r, ($sp)"; otherwise, false
+		 */
+		private static boolean isTopOfStack(InstructionBuffer code, int i, Opcode op)
+		{
+			return code.is(i, op) && code.b(i) == 0 && code.c(i) == Emitter.SP;
+		}
+	}
+	
+	/**
+	 * Fuses loading the address of a word and then loading the word
+	 * through that address into the same register into one lw.
+	 */
+	public static class LoadAddress implements Peephole
+	{
+		/**
+		 * Returns the name of this pass.
+		 * 
+		 * @return "la+lw"
+		 */
+		public String getName()
+		{
+			return "la+lw";
+		}
+		
+		/**
+		 * Fuses each la followed by an lw through the same register.
+		 * 
+		 * @param code the buffered MIPS code
+		 * @return the number of instructions removed
+		 */
+		public int apply(InstructionBuffer code)
+		{
+			int count = 0;
+			for (int i = 0; i < code.size(); i ++)
+			{
+				Opcode op = code.op(i);
+				if (op != Opcode.LA && op != Opcode.LA_SYM)
+				{
+					continue;
+				}
+				int reg = code.a(i);
+				int load = code.next(i);
+				if (code.is(load, Opcode.LW) && code.a(load) == reg && code.b(load) == 0
+						&& code.c(load) == reg)
+				{
+					code.set(i, op == Opcode.LA ? Opcode.LW : Opcode.LW_SYM, reg, code.b(i), code.c(i));
+					code.remove(load);
+					count ++;
+				}
+			}
+			return count;
+		}
+	}
+	
+	/**
+	 * Removes an li that loads a register with the value it is already known
+	 * to hold. What is known is forgotten at labels, calls, returns and
+	 * syscalls, and for a register whenever an instruction writes it.
+	 */
+	public static class RedundantLoadImmediate implements Peephole
+	{
+		/**
+		 * Returns the name of this pass.
+		 * 
+		 * @return "redundant li"
+		 */
+		public String getName()
+		{
+			return "redundant li";
+		}
+		
+		/**
+		 * Removes the redundant li instructions.
+		 * 
+		 * @param code the buffered MIPS code
+		 * @return the number of instructions removed
+		 */
+		public int apply(InstructionBuffer code)
+		{
+			int count = 0;
+			boolean[] known = new boolean[32];
+			int[] values = new int[32];
+			for (int i = 0; i < code.size(); i ++)
+			{
+				Opcode op = code.op(i);
+				if (op == Opcode.LABEL || op == Opcode.JAL || op == Opcode.JR || op == Opcode.SYSCALL)
+				{
+					Arrays.fill(known, false);
+				}
+				else if (op == Opcode.LI)
+				{
+					int reg = code.a(i);
+					if (known[reg] && values[reg] == code.b(i))
+					{
+						code.remove(i);
+						count ++;
+					}
+					else
+					{
+						known[reg] = true;
+						values[reg] = code.b(i);
+					}
+				}
+				else if (op.writesFirstOperand())
+				{
+					known[code.a(i)] = false;
+				}
+			}
+			return count;
+		}
+	}
+	
+	/**
+	 * Turns a conditional branch over an unconditional jump into the
+	 * opposite branch to the jump's target, and removes jumps to the label
+	 * that directly follows them.
+	 */
+	public static class BranchOverJump implements Peephole
+	{
+		/**
+		 * Returns the name of this pass.
+		 * 
+		 * @return "branch over jump"
+		 */
+		public String getName()
+		{
+			return "branch over jump";
+		}
+		
+		/**
+		 * Folds branches over jumps and removes jumps to the next label.
+		 * 
+		 * @param code the buffered MIPS code
+		 * @return the number of instructions removed
+		 */
+		public int apply(InstructionBuffer code)
+		{
+			int count = 0;
+			for (int i = 0; i < code.size(); i ++)
+			{
+				Opcode op = code.op(i);
+				if (op == Opcode.J && isLabel(code, code.next(i), code.a(i)))
+				{
+					code.remove(i);
+					count ++;
+				}
+				else if (op.opposite() != null)
+				{
+					int jump = code.next(i);
+					if (code.is(jump, Opcode.J) && isLabel(code, code.next(jump), code.c(i)))
+					{
+						code.set(i, op.opposite(), code.a(i), code.b(i), code.a(jump));
+						code.remove(jump);
+						count ++;
+					}
+				}
+			}
+			return count;
+		}
+		
+		/**
+		 * Determines whether a line is a given label.
+		 * 
+		 * @param code the buffered MIPS code
+		 * @param i the index of the line, which may be code.size()
+		 * @param label the symbol id of the label
+		 * @return true if the line is the label; otherwise, false
+		 */
+		private static boolean isLabel(InstructionBuffer code, int i, int label)
+		{
+			return code.is(i, Opcode.LABEL) && code.a(i) == label;
+		}
+	}
+}
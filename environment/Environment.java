@@ -2,10 +2,7 @@ package environment;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 
-import ast.Variable;
-import ast.Number;
 import ast.ProcedureDeclaration;
 /**
  * An Environment contains all the Variables and their
@@ -14,6 +11,14 @@ import ast.ProcedureDeclaration;
  * the Environment to modify the integer values associated
  * with each Variable. 
  * 
+ * Variables are kept in an array of int slots rather than by name; a
+ * SlotResolver decides which slot each variable uses. The global
+ * Environment (the one with no parent) holds the global variables, and
+ * each procedure call gets an Environment of its own whose slots hold
+ * the procedure's parameters, return value and local variables. Only the
+ * global Environment has a table of procedures; the procedure methods of
+ * any other Environment use the global Environment's table.
+ * 
  * @author Ashwin Rammohan
  * @version October 12, 2017
  *
@@ -21,20 +26,35 @@ import ast.ProcedureDeclaration;
 public class Environment
 {
 	private Environment parent;
-	private Map<String, Integer> values;
+	private Environment global;
+	private int[] slots;
 	private Map<String, ProcedureDeclaration> procedures;
 
 	
 	/**
-	 * Creates a new Environment and makes the instance Map
-	 * a new HashMap that stores Strings as keys (variable names)
-	 * and Integers as the values.
+	 * Creates a new Environment with no slots.
+	 * 
+	 * @param par the parent Environment, or null for the global Environment
 	 */
 	public Environment(Environment par)
 	{
-		parent = par;
-		values = new HashMap<String, Integer>();
-		procedures = new HashMap<String, ProcedureDeclaration>();
+		this(par, 0);
+	}
+	
+	/**
+	 * Creates a new Environment with a number of slots, all set to 0.
+	 * 
+	 * @param par the parent Environment, or null for the global Environment
+	 * @param size the number of slots
+	 */
+	public Environment(Environment par, int size)
+	{
+		setParent(par);
+		slots = new int[size];
+		if (par == null)
+		{
+			procedures = new HashMap<String, ProcedureDeclaration>();
+		}
 	}
 
 	/**
@@ -56,123 +76,73 @@ public class Environment
 	public void setParent(Environment parent)
 	{
 		this.parent = parent;
+		global = parent == null ? this : parent.global;
 	}
 	
 	/**
-	 * Retrieves the integer value associated with a certain variable, based
-	 * on a given variable name
+	 * Retrieves the global Environment, which is the Environment at the
+	 * root of this Environment's chain of parents.
 	 * 
-	 * @param variable the variable whose value is required
-	 * @return the value of the variable with the correct name
+	 * @return the global Environment
 	 */
-	public int getVariable(String variable)
+	public Environment getGlobal()
 	{
-		if (values.containsKey(variable))
-		{
-			return values.get(variable);
-		}
-		else
-		{
-			return parent.getVariable(variable);
-		}
+		return global;
 	}
 	
 	/**
-	 * Declares the value of a Variable in the current
-	 * Environment.
+	 * Retrieves the slots that hold the values of this Environment's variables.
 	 * 
-	 * @param variable the name of the variable
-	 * @param value the new value of the variable
+	 * @return the array of slots
 	 */
-	public void declareVariable(String variable, int value)
+	public int[] getSlots()
 	{
-		values.put(variable, value);
+		return slots;
 	}
 	
 	/**
-	 * Sets a variable's value to a new integer value. If the variable
-	 * already exists in the current Environment, it's value is updated.
-	 * If the variable does not already exist in the current Environment, then
-	 * the variable will be placed in the global environment. 
-	 * 
-	 * @param variable the Variable whose value is to be modified
-	 * @param value the new value of the Variable
-	 */
-	public void setVariable(String variable, int value)
-	{
-		if (values.containsKey(variable))
-		{
-			declareVariable(variable,value);
-		}
-		else
-		{
-			Environment p = this;
-			boolean flag = false;
-			while (!flag && p.getParent()!= null)
-			{
-				p = p.getParent();
-				if (p.getValues().containsKey(variable))
-				{
-					p.declareVariable(variable, value);
-					flag = true;
-				}
-			}
-			if (flag == false && p.getParent() == null)
-			{
-				if (p.getValues().containsKey(variable))
-				{
-					p.declareVariable(variable, value);
-				}
-				else
-				{
-					this.declareVariable(variable, value);
-				}
-			}			
-		}
-	}
-
-	/**
-	 * Retrieves the Map storing all the Variables and their values.
+	 * Retrieves the slots that hold the values of the global variables.
 	 * 
-	 * @return the Map storing all the Variables and their values
+	 * @return the array of slots of the global Environment
 	 */
-	public Map<String, Integer> getValues() 
+	public int[] getGlobalSlots()
 	{
-		return values;
+		return global.slots;
 	}
-
+	
 	/**
-	 * Sets the instance Map to a new Map of Strings and Integers.
+	 * Sets the slots that hold the values of this Environment's variables
+	 * to a new array.
 	 * 
-	 * @param vals the new Map
+	 * @param vals the new array of slots
 	 */
-	public void setValues(Map<String, Integer> vals) 
+	public void setSlots(int[] vals)
 	{
-		values = vals;
+		slots = vals;
 	}
 	
 	/**
 	 * Retrieves the Map containing names of ProcedureDeclarations and
-	 * their corresponding ProcedureDeclarations from the Environment.
+	 * their corresponding ProcedureDeclarations from the global Environment.
 	 * 
 	 * @return the Map containing names of ProcedureDeclarations and
 	 * their corresponding ProcedureDeclarations
 	 */
 	public Map<String, ProcedureDeclaration> getProcedures()
 	{
-		return procedures;
+		return global.procedures;
 	}
 
 	/**
 	 * Sets the Map of names of ProcedureDeclarations and their corresponding
-	 * ProcedureDeclarations to a new Map.
+	 * ProcedureDeclarations in the global Environment to a new Map.
 	 * 
 	 * @param procedures the new Map of ProcedureDeclaration names
 	 *        and their corresponding ProcedureDeclarations
 	 */
 	public void setProcedures(Map<String, ProcedureDeclaration> procedures)
 	{
-		this.procedures = procedures;
+		global.procedures = procedures;
 	}
 
 	/**
@@ -184,12 +154,7 @@ public class Environment
 	 */
 	public ProcedureDeclaration getProcedure(String name)
 	{
-		Environment p = this;
-		while (p.getParent() != null)
-		{
-			p = p.getParent();
-		}
-		return p.getProcedures().get(name);
+		return global.procedures.get(name);
 	}
 	
 	/**
@@ -203,12 +168,7 @@ public class Environment
 	 */
 	public void setProcedure(String name, ProcedureDeclaration dec)
 	{
-		Environment p = this;
-		while (p.getParent() != null)
-		{
-			p = p.getParent();
-		}
-		p.getProcedures().put(name, dec);
+		global.procedures.put(name, dec);
 	}
 
 
@@ -0,0 +1,374 @@
+package parser;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import ast.Evaluator;
+import ast.Optimizer;
+import ast.Program;
+import environment.Environment;
+import scanner.Scanner;
+
+/**
+ * The BatchCompiler compiles many programs to MIPS in one JVM, so that each
+ * program does not pay for a cold start. The sources are either every file
+ * ending in ".txt" in a directory, or the files listed in a manifest, one
+ * path per line (relative paths are resolved against the manifest's
+ * directory, and blank lines and lines starting with '#' are skipped).
+ *
+ * Each program is scanned, parsed, optimized and compiled by a pool of
+ * worker threads, and its MIPS code is written next to it, or to an output
+ * directory, with the extension ".s". Nothing in this path is shared
+ * between programs, so the workers need no locking. A program that fails to
+ * compile is reported in the summary without stopping the others, and the
+ * summary lists the programs in the order in which they were given.
+ *
+ * Usage: java parser.BatchCompiler <directory or manifest> [-threads n]
+ * 		  [-out directory] [-noopt]
+ *
+ * @author Ashwin Rammohan
+ * @version October 17, 2026
+ *
+ */
+public class BatchCompiler
+{
+	private int threads;
+	private Path outputDirectory;
+	private boolean optimize;
+
+	/**
+	 * Creates a BatchCompiler that uses one worker thread per processor,
+	 * writes each program's MIPS code next to it and optimizes the programs.
+	 */
+	public BatchCompiler()
+	{
+		threads = Runtime.getRuntime().availableProcessors();
+		optimize = true;
+	}
+
+	/**
+	 * Sets the number of worker threads.
+	 *
+	 * @param count the number of threads, which is at least 1
+	 */
+	public void setThreads(int count)
+	{
+		threads = count;
+	}
+
+	/**
+	 * Sets the directory that the MIPS code is written to.
+	 *
+	 * @param dir the directory, or null to write each file next to its source
+	 */
+	public void setOutputDirectory(Path dir)
+	{
+		outputDirectory = dir;
+	}
+
+	/**
+	 * Sets whether the programs are simplified by an Optimizer before they
+	 * are compiled.
+	 *
+	 * @param on true to optimize the programs; otherwise, false
+	 */
+	public void setOptimize(boolean on)
+	{
+		optimize = on;
+	}
+
+	/**
+	 * Finds the sources named by a directory or a manifest.
+	 *
+	 * @param path a directory, whose ".txt" files are returned in order of
+	 * 		  their names, or a manifest file listing the sources
+	 * @return the paths of the sources
+	 * @throws IOException if the directory or the manifest cannot be read
+	 */
+	public static List<Path> findSources(Path path) throws IOException
+	{
+		List<Path> sources = new ArrayList<Path>();
+		if (Files.isDirectory(path))
+		{
+			try (DirectoryStream<Path> dir = Files.newDirectoryStream(path, "*.txt"))
+			{
+				for (Path p: dir)
+				{
+					if (Files.isRegularFile(p))
+					{
+						sources.add(p);
+					}
+				}
+			}
+			Collections.sort(sources);
+		}
+		else
+		{
+			Path base = path.toAbsolutePath().getParent();
+			for (String line: Files.readAllLines(path))
+			{
+				line = line.trim();
+				if (!line.isEmpty() && !line.startsWith("#"))
+				{
+					sources.add(base.resolve(line));
+				}
+			}
+		}
+		return sources;
+	}
+
+	/**
+	 * Returns the path that a source's MIPS code is written to: the source's
+	 * name with its extension replaced by ".s", in the output directory if
+	 * there is one and otherwise next to the source.
+	 *
+	 * @param source the path of the source
+	 * @return the path of the MIPS code
+	 */
+	public Path outputFor(Path source)
+	{
+		String name = source.getFileName().toString();
+		int dot = name.lastIndexOf('.');
+		if (dot > 0)
+		{
+			name = name.substring(0, dot);
+		}
+		name += ".s";
+		if (outputDirectory != null)
+		{
+			return outputDirectory.resolve(name);
+		}
+		return source.resolveSibling(name);
+	}
+
+	/**
+	 * Compiles one program: scans and parses it, optimizes it if optimizing
+	 * is on, and compiles it to MIPS with an Evaluator of its own.
+	 *
+	 * @param source the path of the source
+	 * @return the Result of compiling it, which records any error, including
+	 * 		   a StackOverflowError; other VirtualMachineErrors are rethrown
+	 */
+	public Result compile(Path source)
+	{
+		Path output = outputFor(source);
+		long start = System.nanoTime();
+		try
+		{
+			Program prog = new Parser(Scanner.fromFile(source.toString())).parseProgram();
+			if (optimize)
+			{
+				new Optimizer().optimize(prog);
+			}
+			int removed = 0;
+			for (int count: new Evaluator(new Environment(null))
+					.compile(output.toString(), prog).values())
+			{
+				removed += count;
+			}
+			return new Result(source, output, System.nanoTime() - start, removed, null);
+		}
+		catch (StackOverflowError e) //such as from a deeply nested expression
+		{
+			return new Result(source, output, System.nanoTime() - start, 0, e);
+		}
+		catch (VirtualMachineError e)
+		{
+			throw e;
+		}
+		catch (Throwable e)
+		{
+			return new Result(source, output, System.nanoTime() - start, 0, e);
+		}
+	}
+
+	/**
+	 * Compiles a list of programs on a pool of worker threads, which is shut
+	 * down afterwards. A program whose worker fails with an error that
+	 * compile(Path) rethrows still gets a Result that records the error.
+	 *
+	 * @param sources the paths of the sources
+	 * @return the Results, in the same order as the sources
+	 * @throws InterruptedException if the calling thread is interrupted while
+	 * 		   waiting for the workers
+	 */
+	public List<Result> compileAll(List<Path> sources) throws InterruptedException
+	{
+		if (outputDirectory != null)
+		{
+			try
+			{
+				Files.createDirectories(outputDirectory);
+			}
+			catch (IOException e)
+			{
+				throw new RuntimeException(e);
+			}
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try
+		{
+			List<Future<Result>> futures = new ArrayList<Future<Result>>();
+			for (Path source: sources)
+			{
+				futures.add(pool.submit(() -> compile(source)));
+			}
+			List<Result> results = new ArrayList<Result>();
+			for (int i = 0; i < futures.size(); i ++)
+			{
+				try
+				{
+					results.add(futures.get(i).get());
+				}
+				catch (ExecutionException e) //such as an OutOfMemoryError
+				{
+					Path source = sources.get(i);
+					results.add(new Result(source, outputFor(source), 0, 0, e.getCause()));
+				}
+			}
+			return results;
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Compiles the programs named on the command line and prints a summary
+	 * with one line per program, followed by the totals.
+	 *
+	 * @param args the directory or manifest, followed by the options
+	 * @throws IOException if the directory or the manifest cannot be read
+	 * @throws InterruptedException if the main thread is interrupted
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		if (args.length == 0)
+		{
+			System.err.println("usage: java parser.BatchCompiler <directory or manifest> "
+					+ "[-threads n] [-out directory] [-noopt]");
+			return;
+		}
+		BatchCompiler bc = new BatchCompiler();
+		for (int i = 1; i < args.length; i ++)
+		{
+			if (args[i].equals("-threads") && i + 1 < args.length)
+			{
+				bc.setThreads(Integer.parseInt(args[++ i]));
+			}
+			else if (args[i].equals("-out") && i + 1 < args.length)
+			{
+				bc.setOutputDirectory(Paths.get(args[++ i]));
+			}
+			else if (args[i].equals("-noopt"))
+			{
+				bc.setOptimize(false);
+			}
+		}
+		List<Path> sources = findSources(Paths.get(args[0]));
+		long start = System.nanoTime();
+		List<Result> results = bc.compileAll(sources);
+		long elapsed = System.nanoTime() - start;
+		int failed = 0;
+		for (Result r: results)
+		{
+			System.out.println(r);
+			if (!r.succeeded())
+			{
+				failed ++;
+			}
+		}
+		System.out.printf("compiled %d of %d programs in %.1f ms on %d threads%n",
+				results.size() - failed, results.size(), elapsed / 1e6, bc.threads);
+	}
+
+	/**
+	 * The outcome of compiling one program.
+	 */
+	public static class Result
+	{
+		private final Path source;
+		private final Path output;
+		private final long nanos;
+		private final int removed;
+		private final Throwable error;
+
+		/**
+		 * Creates a Result.
+		 *
+		 * @param source the path of the source
+		 * @param output the path that the MIPS code was written to
+		 * @param nanos the time taken to compile the program, in nanoseconds
+		 * @param removed the number of instructions removed by peephole passes
+		 * @param error the exception or error that stopped the compilation, or
+		 * 		  null
+		 */
+		public Result(Path source, Path output, long nanos, int removed, Throwable error)
+		{
+			this.source = source;
+			this.output = output;
+			this.nanos = nanos;
+			this.removed = removed;
+			this.error = error;
+		}
+
+		/**
+		 * @return the path of the source
+		 */
+		public Path getSource()
+		{
+			return source;
+		}
+
+		/**
+		 * @return the path that the MIPS code was written to
+		 */
+		public Path getOutput()
+		{
+			return output;
+		}
+
+		/**
+		 * @return the exception or error that stopped the compilation, or null
+		 */
+		public Throwable getError()
+		{
+			return error;
+		}
+
+		/**
+		 * @return true if the program was compiled; otherwise, false
+		 */
+		public boolean succeeded()
+		{
+			return error == null;
+		}
+
+		/**
+		 * Returns the line of the summary for this program.
+		 *
+		 * @return the source, followed by the output, time and peephole count
+		 * 		   or by the error
+		 */
+		public String toString()
+		{
+			if (error != null)
+			{
+				return "FAILED " + source + ": " + error;
+			}
+			return String.format("ok     %s -> %s (%.1f ms, peephole removed %d)", source, output,
+					nanos / 1e6, removed);
+		}
+	}
+}
@@ -7,7 +7,9 @@ import java.util.Map;
 
 import scanner.ScanErrorException;
 import scanner.Scanner;
+import scanner.Scanner.TOKEN_KIND;
 import scanner.Token;
+import scanner.TokenStream;
 import ast.Assignment;
 import ast.BinOp;
 import ast.Block;
@@ -25,7 +27,17 @@ import ast.Writeln;
 
 /**
  * The Parser is a simple parser which executes Pascal-like phrases
- * as it parses them.
+ * as it parses them. Productions are chosen by switching on the kind
+ * of the current token rather than by comparing its text.
+ * 
+ * By default, the Parser throws a ScanErrorException for the first syntax
+ * error it finds. If a list is passed to setDiagnostics(), syntax errors are
+ * instead added to the list, and the Parser resynchronizes at the next ';'
+ * (or END) and keeps parsing, so that one bad statement does not stop the
+ * rest of the program from being checked.
+ * 
+ * Each Statement and Expression is given the position of the token it
+ * starts at (for a binary operation, the start of its left operand).
  * 
  * @author Ashwin Rammohan
  * @version October 12, 2017
@@ -33,49 +45,89 @@ import ast.Writeln;
  */
 public class Parser
 {
-	private Scanner sc;
+	private TokenStream sc;
 	private Token curr;
+	private List<ScanErrorException> diagnostics;
 	
 	/**
-	 * Creates a new Parser that takes in a Scanner. The parser calls the scanner's nextToken()
-	 * method and assigns the returned token to an instance variable. 
+	 * Creates a new Parser that takes in a TokenStream, which is usually a Scanner. The
+	 * parser calls the stream's nextToken() method and assigns the returned token to an
+	 * instance variable. 
 	 * 
-	 * @param scanner the Scanner that is taken in
+	 * @param scanner the Scanner (or other TokenStream) that is taken in
 	 * @throws ScanErrorException if the Scanner throws the exception
 	 */
-	public Parser(Scanner scanner) throws ScanErrorException
+	public Parser(TokenStream scanner) throws ScanErrorException
 	{
 		sc = scanner;
-		Token t = scanner.nextToken();
-		curr = t;
-		while(curr == null)
+		curr = scanner.nextToken();
+	}
+	
+	/**
+	 * Sets the list that syntax errors are recorded in. While a list is set,
+	 * the Parser adds each syntax error to the list and resynchronizes instead
+	 * of throwing a ScanErrorException. Lexical errors are only collected if
+	 * the Scanner has been given a list too.
+	 * 
+	 * @param errors the list to record errors in, or null to throw errors
+	 */
+	public void setDiagnostics(List<ScanErrorException> errors)
+	{
+		diagnostics = errors;
+	}
+	
+	/**
+	 * Creates a ScanErrorException for a syntax error at the current token.
+	 * 
+	 * @param reason the description of the error
+	 * @return the exception, with the line and column of the current token
+	 */
+	private ScanErrorException error(String reason)
+	{
+		return new ScanErrorException(reason, sc.getLine(), sc.getColumn());
+	}
+	
+	/**
+	 * Records a syntax error and skips tokens up to and including the next ';',
+	 * or up to (but not including) the next END or the end of the input, so
+	 * that parsing can resume at the start of the next statement.
+	 * 
+	 * @param e the syntax error to record
+	 * @throws ScanErrorException if the scanner throws this exception
+	 */
+	private void recover(ScanErrorException e) throws ScanErrorException
+	{
+		diagnostics.add(e);
+		while (curr.getKind() != TOKEN_KIND.SEMICOLON && curr.getKind() != TOKEN_KIND.END
+				&& curr.getKind() != TOKEN_KIND.END_OF_FILE)
+		{
+			curr = sc.nextToken();
+		}
+		if (curr.getKind() == TOKEN_KIND.SEMICOLON)
+		{
 			curr = sc.nextToken();
+		}
 	}
 	
 
 	/**
-	 * Checks whether the string to be eaten matches the current token's value. Then, 
+	 * Checks whether the kind of token to be eaten matches the current token's kind. Then, 
 	 * the instance variable curr is assigned to the next token returned by the Scanner's
 	 * nextToken() method.
 	 * 
-	 * @param s the value of the Token that is to be eaten
-	 * @throws ScanErrorException if the scanner throws this exception
-	 * @throws IllegalArgumentException if the String that is to be eaten does not match
-	 * 								    the current token's value
+	 * @param kind the kind of the Token that is to be eaten
+	 * @throws ScanErrorException if the scanner throws this exception, or if the kind
+	 * 							  that is to be eaten does not match the current token's kind
 	 */
-	private void eat(String s) throws ScanErrorException, IllegalArgumentException
+	private void eat(TOKEN_KIND kind) throws ScanErrorException
 	{
-		if (s.equals(curr.getValue()))
+		if (curr.getKind() == kind)
 		{
 			curr = sc.nextToken();
-			while(curr == null)
-			{
-				curr = sc.nextToken();
-			}
 		}
 		else
 		{
-			throw new IllegalArgumentException("Expected token: " + curr.getValue() + ". Token received: " + s);
+			throw error("Expected token: " + kind + ". Token received: " + curr.getValue());
 		}
 	}
 	
@@ -91,14 +143,22 @@ public class Parser
 	 */
 	private Number parseNumber() throws ScanErrorException
 	{
-		if (curr.getTokenType() != Scanner.TOKEN_TYPE.NUMBER)
+		if (curr.getKind() != TOKEN_KIND.NUMBER)
 		{
-			throw new ScanErrorException("Number token not found!");
+			throw error("Number token not found!");
 		}
 		else
 		{
-			int num = Integer.parseInt(curr.getValue());
-			eat(curr.getValue());
+			int num;
+			try
+			{
+				num = Integer.parseInt(curr.getValue());
+			}
+			catch (NumberFormatException e)
+			{
+				throw error("Number out of range: " + curr.getValue());
+			}
+			eat(TOKEN_KIND.NUMBER);
 			return new Number(num);
 		}	
 	}
@@ -117,23 +177,36 @@ public class Parser
 	{
 		List<ProcedureDeclaration> procedures = new ArrayList<ProcedureDeclaration>();
 		List<String> variables = new ArrayList<String>();
-		if (curr.getValue().equals("VAR"))
+		if (curr.getKind() == TOKEN_KIND.VAR)
 		{
-			eat("VAR");
-			while (curr.getTokenType().equals(Scanner.TOKEN_TYPE.IDENTIFIER) || curr.getValue().equals(","))
+			eat(TOKEN_KIND.VAR);
+			while (curr.getKind() == TOKEN_KIND.IDENTIFIER || curr.getKind() == TOKEN_KIND.COMMA)
 			{
-				if (curr.getTokenType().equals(Scanner.TOKEN_TYPE.IDENTIFIER))
+				if (curr.getKind() == TOKEN_KIND.IDENTIFIER)
 				{
 					variables.add(curr.getValue());
 				}
-				eat(curr.getValue());
+				eat(curr.getKind());
 			}
-			eat(";");
+			eat(TOKEN_KIND.SEMICOLON);
 		}
-		while (curr.getValue().equals("PROCEDURE"))
+		while (curr.getKind() == TOKEN_KIND.PROCEDURE)
 		{
-			ProcedureDeclaration dec = parseProcedureDeclaration();
-			procedures.add(dec);
+			if (diagnostics == null)
+			{
+				procedures.add(parseProcedureDeclaration());
+			}
+			else
+			{
+				try
+				{
+					procedures.add(parseProcedureDeclaration());
+				}
+				catch (ScanErrorException e)
+				{
+					recover(e);
+				}
+			}
 		}
 		Statement stmt = parseStatement();
 		Program p = new Program(variables, procedures, stmt);
@@ -154,48 +227,83 @@ public class Parser
 	 */
 	public ProcedureDeclaration parseProcedureDeclaration() throws ScanErrorException
 	{
+		int pos = sc.getPosition();
 		List<Expression> params = new ArrayList<Expression>();
-		eat("PROCEDURE");
+		eat(TOKEN_KIND.PROCEDURE);
 		String procedureName = curr.getValue();
-		eat(procedureName);
-		eat("(");
-		if (!curr.getValue().equals(")"))
+		eat(TOKEN_KIND.IDENTIFIER);
+		if (diagnostics == null)
+		{
+			eat(TOKEN_KIND.LPAREN);
+			parseParams(params);
+			eat(TOKEN_KIND.SEMICOLON);
+		}
+		else
 		{
-			while (!curr.getValue().equals(")"))
+			try
 			{
-				if (curr.getValue().equals(","))
-				{
-					eat(",");
-				}
-				params.add(parseExpression());
+				eat(TOKEN_KIND.LPAREN);
+				parseParams(params);
+				eat(TOKEN_KIND.SEMICOLON);
+			}
+			catch (ScanErrorException e)
+			{
+				recover(e);
 			}
 		}
-		eat(")");
-		eat(";");
 		List<Expression> locals = new ArrayList<Expression>();
-		if (curr.getValue().equals("VAR"))
+		if (curr.getKind() == TOKEN_KIND.VAR)
 		{
-			eat("VAR");
-			while (curr.getTokenType().equals(Scanner.TOKEN_TYPE.IDENTIFIER) || curr.getValue().equals(","))
+			eat(TOKEN_KIND.VAR);
+			while (curr.getKind() == TOKEN_KIND.IDENTIFIER || curr.getKind() == TOKEN_KIND.COMMA)
 			{
-				if (curr.getTokenType().equals(Scanner.TOKEN_TYPE.IDENTIFIER))
+				if (curr.getKind() == TOKEN_KIND.IDENTIFIER)
 				{
 					locals.add(parseExpression());
 				}
-				if (curr.getValue().equals(","))
+				if (curr.getKind() == TOKEN_KIND.COMMA)
 				{
-					eat(",");
+					eat(TOKEN_KIND.COMMA);
 				}
 			}
-			eat(";");
+			eat(TOKEN_KIND.SEMICOLON);
 		}
 		Statement stmt = parseStatement();
-		return new ProcedureDeclaration(procedureName, stmt, params, locals);
-		
+		ProcedureDeclaration decl = new ProcedureDeclaration(procedureName, stmt, params, locals);
+		decl.setPosition(pos);
+		return decl;
+	}
+	
+
+	/**
+	 * Parses a comma-separated list of expressions up to and including the
+	 * closing parenthesis, such as the parameters of a procedure or the
+	 * arguments of a procedure call.
+	 * 
+	 * @precondition the opening parenthesis has been eaten
+	 * @param params the list that the parsed expressions are added to
+	 * @throws ScanErrorException if the methods in Scanner throw
+	 * 							  this exception, or the list is malformed
+	 */
+	private void parseParams(List<Expression> params) throws ScanErrorException
+	{
+		if (curr.getKind() != TOKEN_KIND.RPAREN)
+		{
+			params.add(parseExpression());
+			while (curr.getKind() == TOKEN_KIND.COMMA)
+			{
+				eat(TOKEN_KIND.COMMA);
+				params.add(parseExpression());
+			}
+		}
+		eat(TOKEN_KIND.RPAREN);
 	}
+	
 	/**
 	 * Parses one statement in the Pascal-like program and returns a Statement
-	 * object that represents it.
+	 * object that represents it. If a diagnostics list has been set and the
+	 * statement contains a syntax error, the error is recorded, the parser
+	 * resynchronizes, and an empty Block is returned in place of the statement.
 	 * 
 	 * @return a Statement object representing the Statement that was parsed
 	 * @throws ScanErrorException if the methods in Scanner throw
@@ -203,58 +311,82 @@ public class Parser
 	 */
 	public Statement parseStatement() throws ScanErrorException
 	{
-		if (curr.getValue().equals("BEGIN"))
-		{
-			eat("BEGIN");
-			List<Statement> stmts = new ArrayList<Statement>();
-			while (!curr.getValue().equals("END"))
-			{
-				stmts.add(parseStatement());
-			}
-			Block b = new Block(stmts);
-			eat("END");
-			eat(";");
-			return b;
-		}
-		else if (curr.getTokenType().equals(Scanner.TOKEN_TYPE.IDENTIFIER))
-		{
-			String varName = curr.getValue();
-			eat(varName);
-			eat(":=");
-			Assignment a = new Assignment(varName, parseExpression());
-			eat(";");
-			return a;
-		}
-		else if (curr.getValue().equals("WRITELN"))
-		{
-			eat("WRITELN");
-			eat("(");
-			Expression exp = parseExpression();
-			eat(")");
-			eat(";");
-			return new Writeln(exp);
-		}
-		else if (curr.getValue().equals("READLN"))
+		int pos = sc.getPosition();
+		Statement stmt;
+		if (diagnostics == null)
 		{
-			eat("READLN");
-			eat("(");
-			String var = curr.getValue();
-			Scanner input = new Scanner(System.in);
-			Number num = new Number(Integer.parseInt(input.nextToken().getValue()));
-			eat(curr.getValue());
-			eat(")");
-			eat(";");
-			return new Assignment(var, num);
+			stmt = parseStatementStrict();
 		}
-		else if (curr.getValue().equals("IF"))
+		else
 		{
-			return parseIf();
+			try
+			{
+				stmt = parseStatementStrict();
+			}
+			catch (ScanErrorException e)
+			{
+				recover(e);
+				stmt = new Block(new ArrayList<Statement>());
+			}
 		}
-		else if (curr.getValue().equals("WHILE"))
+		stmt.setPosition(pos);
+		return stmt;
+	}
+	
+	/**
+	 * Parses one statement in the Pascal-like program, throwing a
+	 * ScanErrorException for any syntax error.
+	 * 
+	 * @return a Statement object representing the Statement that was parsed
+	 * @throws ScanErrorException if the methods in Scanner throw
+	 * 							  this exception, or the statement is malformed
+	 */
+	private Statement parseStatementStrict() throws ScanErrorException
+	{
+		switch (curr.getKind())
 		{
-			return parseWhile();
+			case BEGIN:
+				eat(TOKEN_KIND.BEGIN);
+				List<Statement> stmts = new ArrayList<Statement>();
+				while (curr.getKind() != TOKEN_KIND.END && curr.getKind() != TOKEN_KIND.END_OF_FILE)
+				{
+					stmts.add(parseStatement());
+				}
+				Block b = new Block(stmts);
+				eat(TOKEN_KIND.END);
+				eat(TOKEN_KIND.SEMICOLON);
+				return b;
+			case IDENTIFIER:
+				String varName = curr.getValue();
+				eat(TOKEN_KIND.IDENTIFIER);
+				eat(TOKEN_KIND.ASSIGN);
+				Assignment a = new Assignment(varName, parseExpression());
+				eat(TOKEN_KIND.SEMICOLON);
+				return a;
+			case WRITELN:
+				eat(TOKEN_KIND.WRITELN);
+				eat(TOKEN_KIND.LPAREN);
+				Expression exp = parseExpression();
+				eat(TOKEN_KIND.RPAREN);
+				eat(TOKEN_KIND.SEMICOLON);
+				return new Writeln(exp);
+			case READLN:
+				eat(TOKEN_KIND.READLN);
+				eat(TOKEN_KIND.LPAREN);
+				String var = curr.getValue();
+				Scanner input = new Scanner(System.in);
+				Number num = new Number(Integer.parseInt(input.nextToken().getValue()));
+				eat(curr.getKind());
+				eat(TOKEN_KIND.RPAREN);
+				eat(TOKEN_KIND.SEMICOLON);
+				return new Assignment(var, num);
+			case IF:
+				return parseIf();
+			case WHILE:
+				return parseWhile();
+			default:
+				throw error("Unexpected token: " + curr.getValue());
 		}
-		return null;
 	}
 
 	/**
@@ -263,52 +395,48 @@ public class Parser
 	 * 
 	 * @precondition the currentChar is inside of the WRITELN() expression
 	 * @return an Expression representing the parsed factor
-	 * @throws ScanErrorException if the methods from the Scanner class throw this exception 
+	 * @throws ScanErrorException if the methods from the Scanner class throw this exception,
+	 * 							  or if the current token cannot start a factor
 	 */
 	public Expression parseFactor() throws ScanErrorException
 	{
-		if (curr.getTokenType().equals(Scanner.TOKEN_TYPE.IDENTIFIER))
+		int pos = sc.getPosition();
+		Expression factor;
+		switch (curr.getKind())
 		{
-			String name = curr.getValue();
-			eat(name);
-			if (curr.getValue().equals("("))
-			{
-				List<Expression> params = new ArrayList<Expression>();
-				eat("(");
-				if (!curr.getValue().equals(")"))
+			case IDENTIFIER:
+				String name = curr.getValue();
+				eat(TOKEN_KIND.IDENTIFIER);
+				if (curr.getKind() == TOKEN_KIND.LPAREN)
 				{
-					while (!curr.getValue().equals(")"))
-					{
-						if (curr.getValue().equals(","))
-						{
-							eat(",");
-						}
-						params.add(parseExpression());
-					}
+					List<Expression> params = new ArrayList<Expression>();
+					eat(TOKEN_KIND.LPAREN);
+					parseParams(params);
+					factor = new ProcedureCall(name, params);
 				}
-				eat(")");
-				return new ProcedureCall(name, params);
-			}
-			return new Variable(name);
-		}
-		if (curr.getTokenType().equals(Scanner.TOKEN_TYPE.NUMBER))
-		{
-			return parseNumber();
-		}
-		else if (curr.getValue().equals("("))
-		{
-			eat("(");
-			Expression exp = parseExpression();
-			eat(")");
-			return exp;
-		}
-		else if (curr.getValue().equals("-"))
-		{
-			eat(curr.getValue());
-			BinOp negate = new BinOp("-", new Number(0), new Number(1));
-			return new BinOp("*", negate, parseFactor());
+				else
+				{
+					factor = new Variable(name);
+				}
+				break;
+			case NUMBER:
+				factor = parseNumber();
+				break;
+			case LPAREN:
+				eat(TOKEN_KIND.LPAREN);
+				factor = parseExpression();
+				eat(TOKEN_KIND.RPAREN);
+				break;
+			case MINUS:
+				eat(TOKEN_KIND.MINUS);
+				BinOp negate = new BinOp("-", new Number(0), new Number(1));
+				factor = new BinOp("*", negate, parseFactor());
+				break;
+			default:
+				throw error("Unexpected token: " + curr.getValue());
 		}
-		return new Number(0);
+		factor.setPosition(pos);
+		return factor;
 	}
 	
 	/**
@@ -328,30 +456,29 @@ public class Parser
 	 */
 	public Expression parseTerm() throws ScanErrorException
 	{
-		Expression factor = parseFactor();
-		String val = curr.getValue();
-		Number num = new Number(0);
-		Expression binop = factor;
-		while (val.equals("*") || val.equals("/") || val.equals("mod"))
+		int pos = sc.getPosition();
+		Expression binop = parseFactor();
+		while (true)
 		{
-			if (val.equals("*"))
+			switch (curr.getKind())
 			{
-				eat(curr.getValue());
-				binop = new BinOp("*", binop, parseFactor());
+				case TIMES:
+					eat(TOKEN_KIND.TIMES);
+					binop = new BinOp("*", binop, parseFactor());
+					break;
+				case DIVIDE:
+					eat(TOKEN_KIND.DIVIDE);
+					binop = new BinOp("/", binop, parseFactor());
+					break;
+				case MOD:
+					eat(TOKEN_KIND.MOD);
+					binop = new BinOp("mod", binop, parseFactor());
+					break;
+				default:
+					return binop;
 			}
-			else if (val.equals("/"))
-			{
-				eat(curr.getValue());
-				binop = new BinOp("/", binop, parseFactor());
-			}
-			else if (val.equals("mod"))
-			{
-				eat(curr.getValue());
-				binop = new BinOp("mod", binop, parseFactor());
-			}
-			val = curr.getValue();
+			binop.setPosition(pos);
 		}
-		return binop;
 	}
 	
 	/**
@@ -364,24 +491,25 @@ public class Parser
 	 */
 	public Expression parseExpression() throws ScanErrorException
 	{
-		Expression term = parseTerm();
-		String val = curr.getValue();
-		Expression binop = term;
-		while (val.equals("+") || val.equals("-"))
+		int pos = sc.getPosition();
+		Expression binop = parseTerm();
+		while (true)
 		{
-			if (val.equals("+"))
-			{
-				eat(curr.getValue());
-				binop = new BinOp("+", binop, parseTerm());
-			}
-			else if (val.equals("-"))
+			switch (curr.getKind())
 			{
-				eat(curr.getValue());
-				binop = new BinOp("-", binop, parseTerm());
+				case PLUS:
+					eat(TOKEN_KIND.PLUS);
+					binop = new BinOp("+", binop, parseTerm());
+					break;
+				case MINUS:
+					eat(TOKEN_KIND.MINUS);
+					binop = new BinOp("-", binop, parseTerm());
+					break;
+				default:
+					return binop;
 			}
-			val = curr.getValue();
+			binop.setPosition(pos);
 		}
-		return binop;
 	}
 	
 	/**
@@ -395,9 +523,9 @@ public class Parser
 	 */
 	public If parseIf() throws ScanErrorException
 	{
-		eat("IF");
+		eat(TOKEN_KIND.IF);
 		Condition cond = parseCondition();
-		eat("THEN");
+		eat(TOKEN_KIND.THEN);
 		Statement stmt = parseStatement();
 		return new If(cond, stmt);
 	}
@@ -413,9 +541,9 @@ public class Parser
 	 */
 	public While parseWhile() throws ScanErrorException
 	{
-		eat("WHILE");
+		eat(TOKEN_KIND.WHILE);
 		Condition cond = parseCondition();
-		eat("DO");
+		eat(TOKEN_KIND.DO);
 		Statement stmt = parseStatement();
 		return new While(cond, stmt);
 	}
@@ -433,7 +561,7 @@ public class Parser
 	{
 		Expression exp1 = parseExpression();
 		Token relop = curr;
-		eat(curr.getValue());
+		eat(curr.getKind());
 		Expression exp2 = parseExpression();
 		return new Condition(exp1, relop, exp2);	
 	}
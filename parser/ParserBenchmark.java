@@ -0,0 +1,83 @@
+package parser;
+
+import java.io.ByteArrayInputStream;
+
+import scanner.PipelinedTokenStream;
+import scanner.ScanErrorException;
+import scanner.Scanner;
+import scanner.ScannerBenchmark;
+
+/**
+ * The ParserBenchmark measures the wall-clock time taken to scan and parse a
+ * large, generated Pascal-like program, both with the Parser pulling tokens
+ * directly from the Scanner and with the Scanner running on its own thread
+ * behind a PipelinedTokenStream.
+ * 
+ * Usage: java parser.ParserBenchmark [sizeInMB] [rounds]
+ * 
+ * @author Ashwin Rammohan
+ * @version October 17, 2026
+ *
+ */
+public class ParserBenchmark
+{
+	/**
+	 * Scans and parses the entire input once.
+	 * 
+	 * @param input the bytes of the program to parse
+	 * @param pipelined whether the Scanner should run on a separate thread
+	 * @throws ScanErrorException if the input cannot be scanned
+	 */
+	private static void parse(byte[] input, boolean pipelined) throws ScanErrorException
+	{
+		Scanner sc = new Scanner(new ByteArrayInputStream(input));
+		if (pipelined)
+		{
+			new Parser(new PipelinedTokenStream(sc)).parseProgram();
+		}
+		else
+		{
+			new Parser(sc).parseProgram();
+		}
+	}
+	
+	/**
+	 * Times a number of rounds of parsing in one mode, after a few warm-up
+	 * rounds, and prints the average wall-clock time per parse.
+	 * 
+	 * @param input the bytes of the program to parse
+	 * @param pipelined whether the Scanner should run on a separate thread
+	 * @param rounds the number of timed rounds
+	 * @throws ScanErrorException if the input cannot be scanned
+	 */
+	private static void time(byte[] input, boolean pipelined, int rounds) throws ScanErrorException
+	{
+		for (int i = 0; i < 3; i ++)
+		{
+			parse(input, pipelined);
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i ++)
+		{
+			parse(input, pipelined);
+		}
+		double millis = (System.nanoTime() - start) / 1e6 / rounds;
+		System.out.printf("%-9s %8.1f ms per parse, %.1f MB/s%n", pipelined ? "pipelined" : "direct",
+				millis, (double) input.length / (1 << 20) / (millis / 1000));
+	}
+	
+	/**
+	 * Compares the direct and pipelined modes on the same generated program.
+	 * 
+	 * @param args the optional program size (in megabytes) and round count
+	 * @throws ScanErrorException if the generated program cannot be scanned
+	 */
+	public static void main(String[] args) throws ScanErrorException
+	{
+		int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		byte[] input = ScannerBenchmark.generateProgram(megabytes << 20).getBytes();
+		time(input, false, rounds);
+		time(input, true, rounds);
+	}
+}
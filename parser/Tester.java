@@ -1,12 +1,16 @@
 package parser;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Map;
 
+import ast.BytecodeCompiler;
+import ast.ClosureCompiler;
 import ast.Statement;
 import environment.Environment;
 import ast.Evaluator;
+import ast.Optimizer;
 import ast.Program;
+import scanner.PipelinedTokenStream;
 import scanner.ScanErrorException;
 import scanner.Scanner;
 import scanner.Token;
@@ -20,25 +24,73 @@ import scanner.Token;
 public class Tester 
 {
 	/**
-	 * Creates a Scanner to scan an InputStream from a file and then uses a Parser to
+	 * Creates a Scanner to scan a memory-mapped file and then uses a Parser to
 	 * parse the statements from the stream of tokens outputted by the Scanner.
+	 * If the command line contains "-pipelined", the Scanner runs on its own
+	 * thread and the Parser reads its tokens through a PipelinedTokenStream.
+	 * If it contains "-closures" or "-bytecode", the program is run by a
+	 * ClosureCompiler or a BytecodeCompiler instead of the Evaluator. Unless
+	 * it contains "-noopt", the program is simplified by an Optimizer before
+	 * it is run and compiled to MIPS.
 	 * 
 	 * @param args the user command line
-	 * @throws FileNotFoundException if the file name taken in by the 
-	 * 								 FileInputStream class is invalid
+	 * @throws IOException if the file name taken in by the 
+	 * 					   Scanner is invalid
 	 * @throws ScanErrorException if the Scanner's methods throw this
 	 * 							  exception
 	 */
-	public static void main(String[] args) throws FileNotFoundException, ScanErrorException
+	public static void main(String[] args) throws IOException, ScanErrorException
 	{
-		Scanner sc = new Scanner(new FileInputStream("C:\\Users\\ashwi\\Documents\\Ashwin's Harker Upper School Folder\\11th Grade Files\\Compilers and Interpreters\\CompProcTest.txt"));
-		Parser p = new Parser(sc);
+		Scanner sc = Scanner.fromFile("C:\\Users\\ashwi\\Documents\\Ashwin's Harker Upper School Folder\\11th Grade Files\\Compilers and Interpreters\\CompProcTest.txt");
+		boolean pipelined = false;
+		boolean closures = false;
+		boolean bytecode = false;
+		boolean optimize = true;
+		for (String arg: args)
+		{
+			pipelined |= arg.equals("-pipelined");
+			closures |= arg.equals("-closures");
+			bytecode |= arg.equals("-bytecode");
+			optimize &= !arg.equals("-noopt");
+		}
 		Environment env = new Environment(null);
-		Program prog = p.parseProgram();
+		Program prog;
+		if (pipelined)
+		{
+			PipelinedTokenStream tokens = new PipelinedTokenStream(sc);
+			try
+			{
+				prog = new Parser(tokens).parseProgram();
+			}
+			finally
+			{
+				tokens.close(); //stops the scanning thread if parsing stopped early
+			}
+		}
+		else
+		{
+			prog = new Parser(sc).parseProgram();
+		}
+		if (optimize)
+		{
+			new Optimizer().optimize(prog);
+		}
 		Evaluator eval = new Evaluator(env);
-		eval.exec(prog, env);
-		eval.compile("C:\\Users\\ashwi\\Documents\\Ashwin's Harker Upper School Folder\\11th Grade"
+		if (closures)
+		{
+			new ClosureCompiler(env).exec(prog);
+		}
+		else if (bytecode)
+		{
+			new BytecodeCompiler(env).exec(prog);
+		}
+		else
+		{
+			eval.exec(prog, env);
+		}
+		Map<String, Integer> removed = eval.compile("C:\\Users\\ashwi\\Documents\\Ashwin's Harker Upper School Folder\\11th Grade"
 				+ " Files\\Compilers and Interpreters\\writeOut.s", prog);
+		System.err.println("peephole removed " + removed);
 		
 	}
 }
@@ -0,0 +1,264 @@
+package scanner;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A PipelinedTokenStream runs a Scanner on its own thread so that reading and
+ * lexing the input overlaps with parsing. The scanning thread fills a bounded
+ * ring buffer of tokens in batches, and the thread calling nextToken() consumes
+ * them. The ring has exactly one producer and one consumer, so it is coordinated
+ * with two counters and no locks: the producer publishes how many tokens it
+ * has written (tail), and the consumer publishes how many it has read (head).
+ * The packed position of each token travels through the ring alongside it.
+ * 
+ * If the Scanner has a diagnostics list, it is filled on the scanning thread;
+ * it is safe to read once the END_OF_FILE token has been returned.
+ * 
+ * Usage:
+ * PipelinedTokenStream tokens = new PipelinedTokenStream(Scanner.fromFile(<file name>));
+ * Parser p = new Parser(tokens);
+ * 
+ * @author Ashwin Rammohan
+ * @version October 17, 2026
+ *
+ */
+public class PipelinedTokenStream implements TokenStream
+{
+	private static final int CAPACITY = 4096;
+	private static final int MASK = CAPACITY - 1;
+	private static final int BATCH = 256;
+	private final Token[] ring;
+	private final int[] positions;
+	private final AtomicLong head;
+	private final AtomicLong tail;
+	private volatile Throwable failure;
+	private volatile boolean closed;
+	private long readPos;
+	private long readLimit;
+	private int position;
+	
+	/**
+	 * Creates a new PipelinedTokenStream and starts scanning the input of the
+	 * given Scanner on a new daemon thread.
+	 * 
+	 * @param scanner the Scanner whose tokens should be supplied
+	 */
+	public PipelinedTokenStream(Scanner scanner)
+	{
+		ring = new Token[CAPACITY];
+		positions = new int[CAPACITY];
+		head = new AtomicLong();
+		tail = new AtomicLong();
+		Thread worker = new Thread(() -> produce(scanner), "scanner");
+		worker.setDaemon(true);
+		worker.start();
+	}
+	
+	/**
+	 * Scans tokens until the end of the input, writing them to the ring in
+	 * batches. A batch is only published once there is room for all of it,
+	 * so the consumer never sees a partially written batch. If the Scanner
+	 * fails partway through a batch, the tokens scanned before the failure
+	 * are published first, so the consumer sees them before the failure.
+	 * 
+	 * @param scanner the Scanner to read tokens from
+	 */
+	private void produce(Scanner scanner)
+	{
+		Token[] batch = new Token[BATCH];
+		int[] batchPositions = new int[BATCH];
+		long write = 0;
+		int n = 0;
+		boolean done = false;
+		try
+		{
+			while (!done)
+			{
+				n = 0;
+				while (n < BATCH && !done)
+				{
+					Token t = scanner.nextToken();
+					batchPositions[n] = scanner.getPosition();
+					batch[n ++] = t;
+					done = t.getKind() == Scanner.TOKEN_KIND.END_OF_FILE;
+				}
+				if (!publish(batch, batchPositions, n, write))
+				{
+					return;
+				}
+				write += n;
+			}
+		}
+		catch (Throwable e) //an Error too, so the consumer does not wait forever
+		{
+			if (publish(batch, batchPositions, n, write))
+			{
+				failure = e;
+			}
+		}
+	}
+	
+	/**
+	 * Copies a batch of tokens into the ring once there is room for all of
+	 * them, and then publishes them to the consumer.
+	 * 
+	 * @param batch the tokens
+	 * @param batchPositions the packed positions of the tokens
+	 * @param n the number of tokens in the batch
+	 * @param write the number of tokens published before the batch
+	 * @return true if the batch was published, or false if the stream was
+	 * 		   closed while waiting for room
+	 */
+	private boolean publish(Token[] batch, int[] batchPositions, int n, long write)
+	{
+		int spins = 0;
+		while (write + n - head.get() > CAPACITY)
+		{
+			if (closed)
+			{
+				return false;
+			}
+			backOff(spins ++);
+		}
+		for (int i = 0; i < n; i ++)
+		{
+			int index = (int) (write + i) & MASK;
+			ring[index] = batch[i];
+			positions[index] = batchPositions[i];
+		}
+		tail.lazySet(write + n);
+		return true;
+	}
+	
+	/**
+	 * Retrieves the next token scanned by the scanning thread, waiting for
+	 * it if necessary. Once the END_OF_FILE token has been reached, it is
+	 * returned on every subsequent call.
+	 * 
+	 * @return the next token
+	 * @throws ScanErrorException if the scanning thread failed to scan the input
+	 */
+	public Token nextToken() throws ScanErrorException
+	{
+		if (readPos == readLimit)
+		{
+			readLimit = awaitTokens();
+		}
+		int index = (int) readPos & MASK;
+		Token t = ring[index];
+		position = positions[index];
+		if (t.getKind() != Scanner.TOKEN_KIND.END_OF_FILE)
+		{
+			readPos ++;
+			if ((readPos & (BATCH - 1)) == 0)
+			{
+				head.lazySet(readPos);
+			}
+		}
+		return t;
+	}
+	
+	/**
+	 * Retrieves the line on which the token most recently returned by
+	 * nextToken() starts.
+	 * 
+	 * @return the line of the last token, starting from 1
+	 */
+	public int getLine()
+	{
+		return Token.lineOf(position);
+	}
+	
+	/**
+	 * Retrieves the column at which the token most recently returned by
+	 * nextToken() starts.
+	 * 
+	 * @return the column of the last token, starting from 1
+	 */
+	public int getColumn()
+	{
+		return Token.columnOf(position);
+	}
+	
+	/**
+	 * Retrieves the line and column of the token most recently returned by
+	 * nextToken(), packed into one int by Token.position().
+	 * 
+	 * @return the packed position of the last token
+	 */
+	public int getPosition()
+	{
+		return position;
+	}
+	
+	/**
+	 * Waits until the scanning thread has published tokens past readPos.
+	 * Before waiting, the consumer's position is published so that a
+	 * producer waiting for room can make progress.
+	 * 
+	 * @return the number of tokens published by the scanning thread
+	 * @throws ScanErrorException if the scanning thread failed before
+	 * 		   publishing any more tokens; an Error on the scanning thread is
+	 * 		   rethrown as it is, and any other exception is wrapped in a
+	 * 		   RuntimeException
+	 */
+	private long awaitTokens() throws ScanErrorException
+	{
+		head.lazySet(readPos);
+		int spins = 0;
+		while (true)
+		{
+			Throwable e = failure;
+			long available = tail.get();
+			if (available != readPos)
+			{
+				return available;
+			}
+			if (e instanceof ScanErrorException)
+			{
+				throw (ScanErrorException) e;
+			}
+			if (e instanceof Error)
+			{
+				throw (Error) e;
+			}
+			if (e != null)
+			{
+				throw new RuntimeException(e);
+			}
+			backOff(spins ++);
+		}
+	}
+	
+	/**
+	 * Waits briefly before a thread checks the ring again: first by
+	 * spinning, then by yielding, and finally by parking for a short time.
+	 * 
+	 * @param spins the number of times the thread has already waited
+	 */
+	private static void backOff(int spins)
+	{
+		if (spins < 128)
+		{
+			Thread.onSpinWait();
+		}
+		else if (spins < 256)
+		{
+			Thread.yield();
+		}
+		else
+		{
+			LockSupport.parkNanos(10000);
+		}
+	}
+	
+	/**
+	 * Stops the scanning thread if it is still running, for instance when
+	 * parsing is abandoned before the end of the input.
+	 */
+	public void close()
+	{
+		closed = true;
+	}
+}
@@ -5,19 +5,26 @@ package scanner;
  * ScanErrorException is a sub class of Exception and is thrown to indicate a 
  * scanning error.  Usually, the scanning error is the result of an illegal 
  * character in the input stream.  The error is also thrown when the expected
- * value of the character stream does not match the actual value.
+ * value of the character stream does not match the actual value. The Parser
+ * also throws it for syntax errors. When the location of the error is known,
+ * the exception records its line and column.
  * @author Mr. Page
  * @version 062014
  *
  */
 public class ScanErrorException extends Exception
 {
+    private final int line;
+    private final int column;
+    
     /**
      * default constructor for ScanErrorObjects
      */
     public ScanErrorException()
     {
         super();
+        line = 0;
+        column = 0;
     }
     /**
      * Constructor for ScanErrorObjects that includes a reason for the error
@@ -26,5 +33,36 @@ public class ScanErrorException extends Exception
     public ScanErrorException(String reason)
     {
         super(reason);
+        line = 0;
+        column = 0;
+    }
+    /**
+     * Constructor for ScanErrorObjects that includes a reason for the error
+     * and the position in the source code where it was found
+     * @param reason
+     * @param line the line of the error, starting from 1
+     * @param column the column of the error, starting from 1
+     */
+    public ScanErrorException(String reason, int line, int column)
+    {
+        super("Line " + line + ", column " + column + ": " + reason);
+        this.line = line;
+        this.column = column;
+    }
+    /**
+     * Retrieves the line where the error was found.
+     * @return the line of the error, or 0 if it is not known
+     */
+    public int getLine()
+    {
+        return line;
+    }
+    /**
+     * Retrieves the column where the error was found.
+     * @return the column of the error, or 0 if it is not known
+     */
+    public int getColumn()
+    {
+        return column;
     }
 }
\ No newline at end of file
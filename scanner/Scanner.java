@@ -1,5 +1,13 @@
 package scanner;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
 
 import scanner.Scanner.TOKEN_TYPE;
 
@@ -12,16 +20,121 @@ import scanner.Scanner.TOKEN_TYPE;
  * It can be used by creating a Scanner object that takes in an InputStream object,
  * and then repeatedly calling the Scanner's nextToken() method in order to 
  * list all of the lexemes in the input.
+ * 
+ * By default, the Scanner throws a ScanErrorException for the first lexical error
+ * it finds. If a list is passed to setDiagnostics(), errors are instead added to
+ * the list and the Scanner skips the offending input and keeps scanning.
  *
  */
-public class Scanner
+public class Scanner implements TokenStream
 {
-    private BufferedReader in;
+    private static final int BUFFER_SIZE = 8192;
+    private Reader in;
+    private ByteBuffer bytes;
+    private byte[] chunk;
+    private char[] buf;
+    private int pos;
+    private int limit;
+    private int mark;
+    private int base;
+    private int[] commentSpans;
+    private int commentCount;
+    private int line;
+    private int lineStart;
+    private int tokenLine;
+    private int tokenColumn;
+    private List<ScanErrorException> diagnostics;
     private char currentChar;
     private boolean eof;
  // define symbolic constants for each type of token
  	public static enum TOKEN_TYPE{IDENTIFIER, KEYWORD, NUMBER, OPERAND, 
  		DELIMETER, END_OF_FILE, RELOP, COMMENT};
+ 	
+ 	/**
+ 	 * A finer-grained classification of tokens than TOKEN_TYPE, with one
+ 	 * constant for each keyword, operator, relational operator and delimiter.
+ 	 * Each kind knows its fixed spelling (null for identifiers and numbers)
+ 	 * and the coarse TOKEN_TYPE that it belongs to. THEN, DO and mod are
+ 	 * given their own kinds but keep the IDENTIFIER type they always had.
+ 	 */
+ 	public static enum TOKEN_KIND
+ 	{
+ 		IDENTIFIER(null, TOKEN_TYPE.IDENTIFIER), NUMBER(null, TOKEN_TYPE.NUMBER),
+ 		END_OF_FILE("", TOKEN_TYPE.END_OF_FILE),
+ 		PROCEDURE("PROCEDURE", TOKEN_TYPE.KEYWORD), VAR("VAR", TOKEN_TYPE.KEYWORD),
+ 		BEGIN("BEGIN", TOKEN_TYPE.KEYWORD), END("END", TOKEN_TYPE.KEYWORD),
+ 		WHILE("WHILE", TOKEN_TYPE.KEYWORD), IF("IF", TOKEN_TYPE.KEYWORD),
+ 		WRITELN("WRITELN", TOKEN_TYPE.KEYWORD), READLN("READLN", TOKEN_TYPE.KEYWORD),
+ 		THEN("THEN", TOKEN_TYPE.IDENTIFIER), DO("DO", TOKEN_TYPE.IDENTIFIER),
+ 		MOD("mod", TOKEN_TYPE.IDENTIFIER),
+ 		ASSIGN(":=", TOKEN_TYPE.OPERAND), PLUS("+", TOKEN_TYPE.OPERAND),
+ 		MINUS("-", TOKEN_TYPE.OPERAND), TIMES("*", TOKEN_TYPE.OPERAND),
+ 		DIVIDE("/", TOKEN_TYPE.OPERAND), PERCENT("%", TOKEN_TYPE.OPERAND),
+ 		LPAREN("(", TOKEN_TYPE.OPERAND), RPAREN(")", TOKEN_TYPE.OPERAND),
+ 		EQUAL("=", TOKEN_TYPE.OPERAND),
+ 		LESS("<", TOKEN_TYPE.RELOP), GREATER(">", TOKEN_TYPE.RELOP),
+ 		LESS_EQUAL("<=", TOKEN_TYPE.RELOP), GREATER_EQUAL(">=", TOKEN_TYPE.RELOP),
+ 		NOT_EQUAL("<>", TOKEN_TYPE.RELOP),
+ 		SEMICOLON(";", TOKEN_TYPE.DELIMETER), COMMA(",", TOKEN_TYPE.DELIMETER);
+ 		
+ 		private final String spelling;
+ 		private final TOKEN_TYPE type;
+ 		
+ 		private TOKEN_KIND(String spelling, TOKEN_TYPE type)
+ 		{
+ 			this.spelling = spelling;
+ 			this.type = type;
+ 		}
+ 		
+ 		/**
+ 		 * Retrieves the fixed spelling of this kind of token.
+ 		 * 
+ 		 * @return the spelling, or null if tokens of this kind have no
+ 		 * 		   fixed spelling
+ 		 */
+ 		public String getSpelling()
+ 		{
+ 			return spelling;
+ 		}
+ 		
+ 		/**
+ 		 * Retrieves the coarse token type for this kind of token.
+ 		 * 
+ 		 * @return the TOKEN_TYPE this kind belongs to
+ 		 */
+ 		public TOKEN_TYPE getTokenType()
+ 		{
+ 			return type;
+ 		}
+ 		
+ 		/**
+ 		 * Finds the kind of token with a given spelling and type, falling back
+ 		 * to IDENTIFIER, NUMBER or END_OF_FILE for lexemes without a fixed spelling.
+ 		 * 
+ 		 * @param str the text of the lexeme
+ 		 * @param type the coarse type of the lexeme
+ 		 * @return the matching kind of token
+ 		 */
+ 		public static TOKEN_KIND of(String str, TOKEN_TYPE type)
+ 		{
+ 			for (TOKEN_KIND kind: values())
+ 			{
+ 				if (kind.type == type && str.equals(kind.spelling))
+ 				{
+ 					return kind;
+ 				}
+ 			}
+ 			if (type == TOKEN_TYPE.NUMBER)
+ 			{
+ 				return NUMBER;
+ 			}
+ 			if (type == TOKEN_TYPE.END_OF_FILE)
+ 			{
+ 				return END_OF_FILE;
+ 			}
+ 			return IDENTIFIER;
+ 		}
+ 	}
     /**
      * Scanner constructor for construction of a scanner that 
      * uses an InputStream object for input.  
@@ -32,35 +145,154 @@ public class Scanner
      */
     public Scanner(InputStream inStream)
     {
-        in = new BufferedReader(new InputStreamReader(inStream));
+        in = new InputStreamReader(inStream);
+        buf = new char[BUFFER_SIZE];
+        pos = -1;
+        limit = 0;
+        mark = -1;
         eof = false;
+        line = 1;
         getNextChar();
     }
+    
     /**
-     * The getNextChar method attempts to get the next character from the input
-     * stream.  It sets the endOfFile flag true if the end of file is reached on
-     * the input stream.  Otherwise, it reads the next character from the stream
-     * and converts it to a Java String object.
-     * postcondition: The input stream is advanced one character if it is not at
-     * end of file and the currentChar instance field is set to the String 
-     * representation of the character read from the input stream.  The flag
-     * endOfFile is set true if the input stream is exhausted.
+     * Scanner constructor for construction of a scanner that reads ASCII
+     * bytes directly out of a ByteBuffer (such as a memory-mapped file)
+     * without decoding them through a Reader.
+     * @param source the buffer holding the source code, positioned at its start
+     */
+    public Scanner(ByteBuffer source)
+    {
+        bytes = source;
+        chunk = new byte[BUFFER_SIZE];
+        buf = new char[BUFFER_SIZE];
+        pos = -1;
+        limit = 0;
+        mark = -1;
+        eof = false;
+        line = 1;
+        getNextChar();
+    }
+    
+    /**
+     * Creates a Scanner for the file with the given name. Regular files are
+     * memory-mapped and scanned directly from the mapping; anything else
+     * (such as a pipe or a device) is read through the InputStream path.
+     * Usage:
+     * Scanner lex = Scanner.fromFile(<file name>);
+     * @param fileName the name of the file to scan
+     * @return a Scanner positioned at the start of the file
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public static Scanner fromFile(String fileName) throws IOException
+    {
+        Path path = Paths.get(fileName);
+        if (Files.isRegularFile(path))
+        {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+            {
+                long size = channel.size();
+                if (size <= Integer.MAX_VALUE)
+                {
+                    return new Scanner(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+                }
+            }
+        }
+        return new Scanner(new FileInputStream(fileName));
+    }
+    /**
+     * The getNextChar method advances to the next character of the input.
+     * Characters are read from a reusable buffer which is refilled in bulk
+     * from the input stream whenever it runs out. It sets the endOfFile flag
+     * true if the end of file is reached on the input stream.
+     * postcondition: The input is advanced one character if it is not at
+     * end of file and the currentChar instance field is set to the character
+     * read from the input.  The flag endOfFile is set true if the input
+     * stream is exhausted.
      */
     private void getNextChar()
     {
-        try
+        if (++pos >= limit)
         {
-            int inp = in.read();
-            if(inp == -1) 
+            fill();
+            if (pos >= limit)
+            {
                 eof = true;
-            currentChar = (char) inp;
+                currentChar = (char) -1;
+                return;
+            }
+        }
+        currentChar = buf[pos];
+    }
+    
+    /**
+     * Refills the buffer from the input stream, or by widening the next
+     * chunk of ASCII bytes when scanning a ByteBuffer. Characters that have already
+     * been scanned are discarded, except for the lexeme that is currently being
+     * scanned (starting at mark), which is moved to the front of the buffer.
+     * The buffer is doubled in size if that lexeme fills all of it.
+     */
+    private void fill()
+    {
+        if (eof)
+        {
+            pos = limit;
+            return;
+        }
+        int keep = (mark >= 0) ? mark : limit;
+        int kept = limit - keep;
+        if (kept == buf.length)
+        {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        else if (keep > 0 && kept > 0)
+        {
+            System.arraycopy(buf, keep, buf, 0, kept);
+        }
+        if (mark >= 0)
+        {
+            mark = 0;
+        }
+        base += keep;
+        pos -= keep;
+        limit = kept;
+        if (bytes != null)
+        {
+            int n = Math.min(Math.min(bytes.remaining(), buf.length - limit), chunk.length);
+            bytes.get(chunk, 0, n);
+            for (int i = 0; i < n; i ++)
+            {
+                buf[limit + i] = (char) (chunk[i] & 0xff);
+            }
+            limit += n;
+            return;
+        }
+        try
+        {
+            int n = in.read(buf, limit, buf.length - limit);
+            if (n > 0)
+            {
+                limit += n;
+            }
         }
         catch (IOException e)
         {
-            e.printStackTrace();
-            System.exit(-1);
+            throw new RuntimeException(e);
         }
     }
+    
+    /**
+     * Creates the String for the lexeme that starts at the marked position
+     * and ends just before the current character, and clears the mark.
+     * 
+     * @return the text of the lexeme that was just scanned
+     */
+    private String lexeme()
+    {
+        String s = new String(buf, mark, pos - mark);
+        mark = -1;
+        return s;
+    }
     /**
      * Advances the input stream by one character by calling the getNextChar() method.
      * If the expected value of the current character does not match with the actual value,
@@ -72,23 +304,37 @@ public class Scanner
      */
     private void eat(char c) throws ScanErrorException
     {
-    	try
+    	if (c == currentChar)
     	{
-    		if (c == currentChar)
-        	{
-        		getNextChar();
-        	}
-        	else
-        	{
-        		throw new ScanErrorException("Illegal character - expected " + currentChar + "and found " + c);
-        	}
+    		getNextChar();
     	}
-    	catch(ScanErrorException s)
+    	else
     	{
-    		s.printStackTrace();
-    		System.exit(-1);
+    		throw error("Illegal character - expected " + c + " and found " + currentChar);
     	}
     }
+    
+    /**
+     * Creates a ScanErrorException for an error at the current character.
+     * 
+     * @param reason the description of the error
+     * @return the exception, with the line and column of the current character
+     */
+    private ScanErrorException error(String reason)
+    {
+    	return new ScanErrorException(reason, line, base + pos - lineStart + 1);
+    }
+    
+    /**
+     * Records that the current character is a newline, so that the next
+     * character starts a new line. Newlines can only occur in white space
+     * and comments, so only the loops that skip those call this method.
+     */
+    private void newLine()
+    {
+    	line ++;
+    	lineStart = base + pos + 1;
+    }
     /**
      * Checks whether the scanner should keep reading. If the scanner is at the end
      * of the file, then it should stop reading.
@@ -149,21 +395,12 @@ public class Scanner
      */
     private Token scanNumber() throws ScanErrorException
     {
-    	String num = "";
-    	try
+    	mark = pos;
+    	while (isDigit(currentChar))
     	{
-	    	while (isDigit(currentChar))
-	    	{
-	    		num += currentChar;
-	    		eat(currentChar);
-	    	}
+    		getNextChar();
     	}
-    	catch(ScanErrorException s)
-    	{
-    		s.printStackTrace();
-    		System.exit(-1);
-    	}
-    	return  new Token(num,TOKEN_TYPE.NUMBER);
+    	return new Token(lexeme(), TOKEN_KIND.NUMBER);
     }
     
     /**
@@ -171,34 +408,86 @@ public class Scanner
      * an identifier. It keeps scanning until the current 
      * character is neither a letter nor a digit.
      * Then, it returns a Token with type IDENTIFIER containing the series 
-     * of characters that were scanned. 
+     * of characters that were scanned, or the shared Token for a keyword if
+     * the characters spell one (in which case no String is created).
      * 
      * @return a Token representing the lexeme found in the input stream
      * @throws ScanErrorException if no lexeme in the form of a identifier can be identified
      */
     private Token scanIdentifier() throws ScanErrorException
     {
-    	String id = "";
-    	try{
-	    	while (isDigit(currentChar) || isLetter(currentChar))
-	    	{
-	    		id += currentChar;
-	    		eat(currentChar);
-	    	}
-	    	if (id.equals("PROCEDURE") || id.equals("VAR") || id.equals("BEGIN")
-	    		|| id.equals("WHILE") || id.equals("END") || id.equals("WRITELN") || id.equals("READLN")
-	    		|| id.equals("IF"))
-	    	{
-	    		Token t = new Token(id, TOKEN_TYPE.KEYWORD);
-	    		return t;
-	    	}
+    	mark = pos;
+    	while (isDigit(currentChar) || isLetter(currentChar))
+    	{
+    		getNextChar();
     	}
-    	catch(ScanErrorException s)
+    	TOKEN_KIND kind = keyword(mark, pos - mark);
+    	if (kind != TOKEN_KIND.IDENTIFIER)
     	{
-    		s.printStackTrace();
-    		System.exit(-1);
+    		mark = -1;
+    		return Token.forKind(kind);
     	}
-    	return new Token(id, TOKEN_TYPE.IDENTIFIER);
+    	return new Token(lexeme(), kind);
+    }
+    
+    /**
+     * Classifies the characters in the buffer as a keyword or an identifier.
+     * The candidate keyword is picked by a switch on the length (and, where
+     * lengths collide, on the first character), so at most one keyword is
+     * ever compared against the characters.
+     * 
+     * @param start the index in the buffer of the first character
+     * @param len the number of characters
+     * @return the kind of the keyword, or IDENTIFIER if it is not a keyword
+     */
+    private TOKEN_KIND keyword(int start, int len)
+    {
+    	TOKEN_KIND candidate;
+    	switch (len)
+    	{
+    		case 2:
+    			candidate = (buf[start] == 'I') ? TOKEN_KIND.IF : TOKEN_KIND.DO;
+    			break;
+    		case 3:
+    			switch (buf[start])
+    			{
+    				case 'V':
+    					candidate = TOKEN_KIND.VAR;
+    					break;
+    				case 'E':
+    					candidate = TOKEN_KIND.END;
+    					break;
+    				default:
+    					candidate = TOKEN_KIND.MOD;
+    			}
+    			break;
+    		case 4:
+    			candidate = TOKEN_KIND.THEN;
+    			break;
+    		case 5:
+    			candidate = (buf[start] == 'B') ? TOKEN_KIND.BEGIN : TOKEN_KIND.WHILE;
+    			break;
+    		case 6:
+    			candidate = TOKEN_KIND.READLN;
+    			break;
+    		case 7:
+    			candidate = TOKEN_KIND.WRITELN;
+    			break;
+    		case 9:
+    			candidate = TOKEN_KIND.PROCEDURE;
+    			break;
+    		default:
+    			return TOKEN_KIND.IDENTIFIER;
+    	}
+    	String spelling = candidate.getSpelling();
+    	for (int i = 0; i < len; i ++)
+    	{
+    		if (buf[start + i] != spelling.charAt(i))
+    		{
+    			return TOKEN_KIND.IDENTIFIER;
+    		}
+    	}
+    	return candidate;
     }
     
     /**
@@ -212,32 +501,43 @@ public class Scanner
      */
     private Token scanOperand() throws ScanErrorException
     {
-    	String operand = "";
-    	Token t = new Token(operand, TOKEN_TYPE.OPERAND);
-    	try
+    	TOKEN_KIND kind;
+    	char c = currentChar;
+    	getNextChar();
+    	switch (c)
     	{
-	    	if (currentChar == ':' || currentChar == '<' || currentChar == '>')
-	    	{
-	    		String specOp = "";
-	    		specOp += currentChar;
-	    		eat(currentChar);
-	    		specOp += currentChar;
-	    		eat('=');
-	    		t = new Token(specOp, TOKEN_TYPE.OPERAND);
-	    	}
-	    	else
-	    	{
-	    		operand += currentChar;
-	    		eat(currentChar);
-	    		t = new Token(operand, TOKEN_TYPE.OPERAND);
-	    	}
+    		case ':':
+    			eat('=');
+    			kind = TOKEN_KIND.ASSIGN;
+    			break;
+    		case '=':
+    			kind = TOKEN_KIND.EQUAL;
+    			break;
+    		case '+':
+    			kind = TOKEN_KIND.PLUS;
+    			break;
+    		case '-':
+    			kind = TOKEN_KIND.MINUS;
+    			break;
+    		case '*':
+    			kind = TOKEN_KIND.TIMES;
+    			break;
+    		case '/':
+    			kind = TOKEN_KIND.DIVIDE;
+    			break;
+    		case '%':
+    			kind = TOKEN_KIND.PERCENT;
+    			break;
+    		case '(':
+    			kind = TOKEN_KIND.LPAREN;
+    			break;
+    		case ')':
+    			kind = TOKEN_KIND.RPAREN;
+    			break;
+    		default:
+    			throw error("Cannot parse this operand: " + c);
     	}
-    	catch(ScanErrorException s)
-    	{
-    		s.printStackTrace();
-    		System.exit(-1);
-    	}
-    	return t;
+    	return Token.forKind(kind);
     }
     
     /**
@@ -260,48 +560,37 @@ public class Scanner
      */
     private Token scanRelop() throws ScanErrorException
     {
-    	String specOp = "";
-    	try
+    	TOKEN_KIND kind = TOKEN_KIND.EQUAL;
+    	if (currentChar == '=')
     	{
-	    	if (currentChar == '=')
-	    	{
-	    		specOp += currentChar;
-	    		eat(currentChar);
-	    	}
-	    	else if (currentChar == '>' || currentChar == '<')
+    		getNextChar();
+    	}
+    	else if (currentChar == '<')
+		{
+			getNextChar();
+			kind = TOKEN_KIND.LESS;
+			if (currentChar == '>')
 			{
-				specOp += currentChar;
-				if (currentChar == '<')
-				{
-					eat(currentChar);
-					if (currentChar == '>')
-					{
-						specOp += currentChar;
-						eat('>');
-					}
-					else if (currentChar == '=')
-					{
-						specOp += currentChar;
-						eat('=');
-					}
-				}
-				else
-				{
-					eat(currentChar);
-					if (currentChar == '=')
-					{
-						specOp += currentChar;
-						eat('=');
-					}
-				}
+				getNextChar();
+				kind = TOKEN_KIND.NOT_EQUAL;
 			}
-    	}
-    	catch(ScanErrorException s)
-    	{
-    		s.printStackTrace();
-    		System.exit(-1);
-    	}
-		return new Token(specOp, TOKEN_TYPE.RELOP);
+			else if (currentChar == '=')
+			{
+				getNextChar();
+				kind = TOKEN_KIND.LESS_EQUAL;
+			}
+		}
+		else if (currentChar == '>')
+		{
+			getNextChar();
+			kind = TOKEN_KIND.GREATER;
+			if (currentChar == '=')
+			{
+				getNextChar();
+				kind = TOKEN_KIND.GREATER_EQUAL;
+			}
+		}
+		return Token.forKind(kind);
     }
     
     /**
@@ -325,27 +614,20 @@ public class Scanner
      */
     private Token scanDelimeter() throws ScanErrorException
     {
-    	String semi = "";
-    	Token t = new Token(semi, TOKEN_TYPE.DELIMETER);
-    	try
-    	{
-    		semi += currentChar;
-    		eat(currentChar);
-    		t = new Token(semi, TOKEN_TYPE.DELIMETER);
-    	}
-    	catch(ScanErrorException s)
-    	{
-    		s.printStackTrace();
-    		System.exit(-1);
-    	}
-    	return t;
+    	TOKEN_KIND kind = (currentChar == ';') ? TOKEN_KIND.SEMICOLON : TOKEN_KIND.COMMA;
+    	getNextChar();
+    	return Token.forKind(kind);
     }
     /**
-     * Skips any leading white space and then proceeds to examine the value of the current
+     * Skips any white space and comments and then proceeds to examine the value of the current
      * character. Based on the character's value, the method will call the appropriate methods
-     * to return a token representing the next lexeme in the input stream.
+     * to return a token representing the next lexeme in the input stream. Comments are skipped
+     * in the same loop as white space, so this method never returns null; a '/' that does not
+     * start a comment is returned as a division operator.
+     * If a lexical error is found and a diagnostics list has been set, the error is added
+     * to the list, the offending input is skipped, and the following token is returned.
      * If the Scanner has reached the end of the input stream when this method is called,
-     * an END_OF_FILE token will be returned, with the value "END". 
+     * an END_OF_FILE token will be returned, with the value "". 
      * 
      * @return and END_OF_FILE token if the scanner has reached the end of the input stream; otherwise, return
      * the next lexeme in the input stream.
@@ -355,92 +637,258 @@ public class Scanner
      */
     public Token nextToken() throws ScanErrorException
     {
-    	Token t = new Token("", TOKEN_TYPE.END_OF_FILE);
-    	try
+    	while (true)
     	{
-	    	String comment = "";
-	    	while (isWhiteSpace(currentChar))
+	    	try
 	    	{
-	    		eat(currentChar);
+	    		return scanToken();
 	    	}
-	    	if (currentChar == '/')
+	    	catch (ScanErrorException s)
 	    	{
-	    		eat(currentChar);
-	    		if (currentChar == '/')
+	    		if (diagnostics == null)
 	    		{
-	    			while (hasNext() && currentChar != '\n')
-	    			{
-	    				eat(currentChar);
-	    			}
-	    			eat(currentChar);
-	    			return null;
+	    			throw s;
 	    		}
-	    		else if (currentChar == '*')
-	    		{
-	    			comment = "";
-	    			eat(currentChar);
-	    			boolean done = false;
-	    			while (!done)
-	    			{
-	    				if (currentChar == '*')
-	    				{
-	    					eat(currentChar);
-	    					if (currentChar == '/')
-	    					{
-	    						eat(currentChar);
-	    						done = true;
-	    					}
-	    				}
-	    				else
-	    				{
-	    					eat(currentChar);
-	    				}
-	    			}
-	    			return null;
-	    		}
-	    	}
-	    	if (currentChar != '/' && comment.equals("/"))
-	    	{
-	    		t = new Token(comment, TOKEN_TYPE.OPERAND);
-	    	}
-	    	while (isWhiteSpace(currentChar))
-	    	{
-	    		eat(currentChar);
-	    	}
-	    	if (isDigit(currentChar))
-	    	{
-	    		return scanNumber();
-	    	}
-	    	else if (isLetter(currentChar))
-	    	{
-	    		return scanIdentifier();
-	    	}
-	    	else if (checkIfOperand(currentChar))
-	    	{
-	    		return scanOperand();
-	    	}
-	    	else if (checkIfRelopChar(currentChar))
-	    	{
-	    		return scanRelop();
-	    	}
-	    	else if (currentChar == ';' || currentChar == ',')
-	    	{
-	    		return scanDelimeter();
-	    	}
-	    	if (currentChar == '.' || eof)
-	    	{
-	    		eof = true;
-	    	}
-	    	else
-	    	{
-	    		throw new ScanErrorException("Cannot parse this lexeme: " + currentChar);
+	    		diagnostics.add(s);
 	    	}
     	}
-    	catch(ScanErrorException s)
+    }
+    
+    /**
+     * Skips white space and comments and scans the next token, as described for
+     * nextToken(). Before an error for an illegal character is thrown, the
+     * character is skipped so that scanning can resume after it.
+     * 
+     * @return the next token in the input stream
+     * @throws ScanErrorException if the next lexeme cannot be scanned
+     */
+    private Token scanToken() throws ScanErrorException
+    {
+    	while (true)
+    	{
+    		if (isWhiteSpace(currentChar))
+    		{
+    			if (currentChar == '\n')
+    			{
+    				newLine();
+    			}
+    			getNextChar();
+    		}
+    		else if (currentChar == '/')
+    		{
+    			int start = base + pos;
+    			tokenLine = line;
+    			tokenColumn = start - lineStart + 1;
+    			getNextChar();
+    			if (currentChar == '/')
+    			{
+    				while (!eof && currentChar != '\n')
+    				{
+    					getNextChar();
+    				}
+    			}
+    			else if (currentChar == '*')
+    			{
+    				skipBlockComment();
+    			}
+    			else
+    			{
+    				return Token.forKind(TOKEN_KIND.DIVIDE);
+    			}
+    			if (commentSpans != null)
+    			{
+    				recordComment(start, base + pos);
+    			}
+    		}
+    		else
+    		{
+    			break;
+    		}
+    	}
+    	tokenLine = line;
+    	tokenColumn = base + pos - lineStart + 1;
+    	if (isDigit(currentChar))
+    	{
+    		return scanNumber();
+    	}
+    	else if (isLetter(currentChar))
+    	{
+    		return scanIdentifier();
+    	}
+    	else if (checkIfOperand(currentChar))
+    	{
+    		return scanOperand();
+    	}
+    	else if (checkIfRelopChar(currentChar))
     	{
-    		s.printStackTrace();
-    		System.exit(-1);
+    		return scanRelop();
     	}
-    	return t;   	
-    }   
+    	else if (currentChar == ';' || currentChar == ',')
+    	{
+    		return scanDelimeter();
+    	}
+    	if (currentChar == '.' || eof)
+    	{
+    		eof = true;
+    		return Token.forKind(TOKEN_KIND.END_OF_FILE);
+    	}
+    	ScanErrorException e = error("Cannot parse this lexeme: " + currentChar);
+    	getNextChar();
+    	throw e;
+    }
+    
+    /**
+     * Retrieves the line on which the token most recently returned by
+     * nextToken() starts.
+     * 
+     * @return the line of the last token, starting from 1
+     */
+    public int getLine()
+    {
+    	return tokenLine;
+    }
+    
+    /**
+     * Retrieves the column at which the token most recently returned by
+     * nextToken() starts.
+     * 
+     * @return the column of the last token, starting from 1
+     */
+    public int getColumn()
+    {
+    	return tokenColumn;
+    }
+    
+    /**
+     * Retrieves the line and column of the token most recently returned by
+     * nextToken(), packed into one int by Token.position().
+     * 
+     * @return the packed position of the last token
+     */
+    public int getPosition()
+    {
+    	return Token.position(tokenLine, tokenColumn);
+    }
+    
+    /**
+     * Sets the list that lexical errors are recorded in. While a list is set,
+     * nextToken() adds each error to the list and keeps scanning instead of
+     * throwing a ScanErrorException. When the Scanner runs behind a
+     * PipelinedTokenStream, errors are added from the scanning thread, so
+     * the list must not be shared with the Parser unless it is synchronized.
+     * 
+     * @param errors the list to record errors in, or null to throw errors
+     */
+    public void setDiagnostics(List<ScanErrorException> errors)
+    {
+    	diagnostics = errors;
+    }
+    
+    /**
+     * Skips the rest of a block comment.
+     * @precondition the current character is the '*' following the opening '/'
+     * @postcondition the current character is the one after the end of the comment
+     * @throws ScanErrorException if the input ends before the comment is closed
+     */
+    private void skipBlockComment() throws ScanErrorException
+    {
+    	int startLine = tokenLine;
+    	int startColumn = tokenColumn;
+    	getNextChar();
+    	while (!eof)
+    	{
+    		if (currentChar == '*')
+    		{
+    			getNextChar();
+    			if (currentChar == '/')
+    			{
+    				getNextChar();
+    				return;
+    			}
+    		}
+    		else
+    		{
+    			if (currentChar == '\n')
+    			{
+    				newLine();
+    			}
+    			getNextChar();
+    		}
+    	}
+    	throw new ScanErrorException("Unterminated comment", startLine, startColumn);
+    }
+    
+    /**
+     * Turns the recording of comment spans on or off. While recording is on,
+     * the start and end offsets of every comment that is skipped are kept
+     * (without creating a String for the comment) so that tools can find
+     * the comments in the source after scanning.
+     * 
+     * @param record true to record comment spans; false to stop recording
+     * 		  and discard the spans recorded so far
+     */
+    public void setRecordComments(boolean record)
+    {
+    	if (!record)
+    	{
+    		commentSpans = null;
+    	}
+    	else if (commentSpans == null)
+    	{
+    		commentSpans = new int[16];
+    	}
+    	commentCount = 0;
+    }
+    
+    /**
+     * Records the span of a comment that has just been skipped.
+     * 
+     * @param start the offset of the first character of the comment
+     * @param end the offset just past the last character of the comment
+     */
+    private void recordComment(int start, int end)
+    {
+    	if (2 * commentCount + 2 > commentSpans.length)
+    	{
+    		commentSpans = Arrays.copyOf(commentSpans, commentSpans.length * 2);
+    	}
+    	commentSpans[2 * commentCount] = start;
+    	commentSpans[2 * commentCount + 1] = end;
+    	commentCount ++;
+    }
+    
+    /**
+     * Retrieves the number of comments recorded since recording was turned on.
+     * 
+     * @return the number of recorded comments
+     */
+    public int getCommentCount()
+    {
+    	return commentCount;
+    }
+    
+    /**
+     * Retrieves the offset (in characters from the start of the input) of the
+     * first character of a recorded comment.
+     * 
+     * @param i the index of the comment, in the order the comments were skipped
+     * @return the offset of the comment's opening '/'
+     */
+    public int getCommentStart(int i)
+    {
+    	return commentSpans[2 * i];
+    }
+    
+    /**
+     * Retrieves the offset (in characters from the start of the input) just past
+     * the last character of a recorded comment. Line comments end before their
+     * terminating newline.
+     * 
+     * @param i the index of the comment, in the order the comments were skipped
+     * @return the offset just past the end of the comment
+     */
+    public int getCommentEnd(int i)
+    {
+    	return commentSpans[2 * i + 1];
+    }
 }
@@ -0,0 +1,307 @@
+package scanner;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+
+/**
+ * The ScannerBenchmark measures the throughput of the Scanner by repeatedly
+ * scanning a large, generated Pascal-like program held in memory and reporting
+ * how many megabytes of source were scanned per second. In "mapped" mode the
+ * program is written to a temporary file which is scanned through
+ * Scanner.fromFile instead of through an in-memory InputStream. In
+ * "baseline" mode the program is scanned by a copy of the Scanner's
+ * original loop, which read one character at a time from a BufferedReader
+ * and built each lexeme with String +=, so that the numbers of the current
+ * Scanner can be compared against it on the same input. The
+ * "identifiers" workload is made almost entirely of identifiers and keywords
+ * to stress keyword classification, and the "comments" workload interleaves
+ * statements with line and block comments. Along with the throughput, the benchmark
+ * reports how many bytes the scanning thread allocated per token.
+ * 
+ * Usage: java scanner.ScannerBenchmark [sizeInMB] [rounds] [stream|mapped|baseline]
+ * 		  [mixed|identifiers|comments]
+ * 
+ * @author Ashwin Rammohan
+ * @version October 17, 2026
+ *
+ */
+public class ScannerBenchmark
+{
+	/**
+	 * Generates a program of roughly the requested size by repeating a
+	 * procedure and a block of statements with unique identifiers.
+	 * 
+	 * @param bytes the approximate size of the program in bytes
+	 * @return the source code of the generated program
+	 */
+	public static String generateProgram(int bytes)
+	{
+		StringBuilder sb = new StringBuilder(bytes + 256);
+		sb.append("VAR total, count;\n");
+		int i = 0;
+		while (sb.length() < bytes)
+		{
+			sb.append("PROCEDURE compute").append(i).append("(alpha, beta);\n");
+			sb.append("VAR gamma;\n");
+			sb.append("BEGIN\n");
+			sb.append("  gamma := alpha * 31 + beta / 7 - 1200;\n");
+			sb.append("  IF gamma >= 100 THEN compute").append(i).append(" := gamma;\n");
+			sb.append("  WHILE gamma <> 0 DO gamma := gamma - 1;\n");
+			sb.append("END;\n");
+			i ++;
+		}
+		sb.append("BEGIN\n  WRITELN(total);\nEND;\n.");
+		return sb.toString();
+	}
+
+	/**
+	 * Generates a program of roughly the requested size that consists almost
+	 * entirely of identifiers and keywords, such as long blocks of assignments
+	 * between variables.
+	 * 
+	 * @param bytes the approximate size of the program in bytes
+	 * @return the source code of the generated program
+	 */
+	public static String generateIdentifierProgram(int bytes)
+	{
+		StringBuilder sb = new StringBuilder(bytes + 256);
+		sb.append("VAR first, second, third;\n");
+		int i = 0;
+		while (sb.length() < bytes)
+		{
+			sb.append("BEGIN\n");
+			sb.append("  counter").append(i).append(" := first;\n");
+			sb.append("  IF second <> third THEN value").append(i).append(" := counter").append(i).append(";\n");
+			sb.append("  WHILE first < second DO first := second;\n");
+			sb.append("  WRITELN(value").append(i).append(");\n");
+			sb.append("END;\n");
+			i ++;
+		}
+		sb.append("BEGIN\n  WRITELN(first);\nEND;\n.");
+		return sb.toString();
+	}
+
+	/**
+	 * Generates a program of roughly the requested size in which most of the
+	 * text is line and block comments, as in heavily annotated generated code.
+	 * 
+	 * @param bytes the approximate size of the program in bytes
+	 * @return the source code of the generated program
+	 */
+	public static String generateCommentProgram(int bytes)
+	{
+		StringBuilder sb = new StringBuilder(bytes + 256);
+		sb.append("VAR total;\n");
+		int i = 0;
+		while (sb.length() < bytes)
+		{
+			sb.append("// generated from template ").append(i).append(", do not edit\n");
+			sb.append("PROCEDURE step").append(i).append("(value);\n");
+			sb.append("/* Adds the step number to the value.\n");
+			sb.append("   The result is returned through step").append(i).append(". */\n");
+			sb.append("step").append(i).append(" := value + ").append(i).append("; // done\n");
+			i ++;
+		}
+		sb.append("BEGIN\n  WRITELN(total);\nEND;\n.");
+		return sb.toString();
+	}
+
+	/**
+	 * Scans the entire input once, returning the number of tokens read.
+	 * 
+	 * @param input the bytes of the program to scan
+	 * @param file the file holding the same program, or null to scan
+	 * 		  the bytes through an InputStream
+	 * @return the number of tokens produced by the Scanner
+	 * @throws ScanErrorException if the input cannot be scanned
+	 * @throws IOException if the file cannot be mapped
+	 */
+	private static int scan(byte[] input, File file) throws ScanErrorException, IOException
+	{
+		Scanner sc;
+		if (file == null)
+		{
+			sc = new Scanner(new ByteArrayInputStream(input));
+		}
+		else
+		{
+			sc = Scanner.fromFile(file.getPath());
+		}
+		int tokens = 0;
+		while (sc.hasNext())
+		{
+			sc.nextToken();
+			tokens ++;
+		}
+		return tokens;
+	}
+
+	/**
+	 * Scans the entire input once with the Scanner's original per-character
+	 * loop: every character is read with BufferedReader.read() and appended
+	 * to its lexeme with String +=. Whitespace and comments are skipped, and
+	 * ":=", "<=", ">=" and "<>" are read as single lexemes, as the Scanner
+	 * does.
+	 * 
+	 * @param input the bytes of the program to scan
+	 * @return the number of lexemes read
+	 * @throws IOException if the input cannot be read
+	 */
+	private static int scanBaseline(byte[] input) throws IOException
+	{
+		BufferedReader in = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(input)));
+		int tokens = 0;
+		int c = in.read();
+		while (c != -1)
+		{
+			String lexeme = "";
+			if (Scanner.isWhiteSpace((char) c))
+			{
+				c = in.read();
+				continue;
+			}
+			if (c == '/')
+			{
+				c = in.read();
+				if (c == '/')
+				{
+					while (c != -1 && c != '\n')
+					{
+						c = in.read();
+					}
+					continue;
+				}
+				if (c == '*')
+				{
+					int prev = 0;
+					c = in.read();
+					while (c != -1 && !(prev == '*' && c == '/'))
+					{
+						prev = c;
+						c = in.read();
+					}
+					c = in.read();
+					continue;
+				}
+				lexeme += '/';
+			}
+			else if (Scanner.isDigit((char) c))
+			{
+				while (c != -1 && Scanner.isDigit((char) c))
+				{
+					lexeme += (char) c;
+					c = in.read();
+				}
+			}
+			else if (Scanner.isLetter((char) c))
+			{
+				while (c != -1 && (Scanner.isLetter((char) c) || Scanner.isDigit((char) c)))
+				{
+					lexeme += (char) c;
+					c = in.read();
+				}
+			}
+			else
+			{
+				lexeme += (char) c;
+				int first = c;
+				c = in.read();
+				if (c == '=' && (first == ':' || first == '<' || first == '>')
+						|| c == '>' && first == '<')
+				{
+					lexeme += (char) c;
+					c = in.read();
+				}
+			}
+			if (!lexeme.isEmpty())
+			{
+				tokens ++;
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * Retrieves the number of bytes allocated so far by the current thread,
+	 * or 0 if the JVM cannot report it.
+	 * 
+	 * @return the number of bytes allocated by the current thread
+	 */
+	public static long allocatedBytes()
+	{
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean)
+		{
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(
+					Thread.currentThread().getId());
+		}
+		return 0;
+	}
+
+	/**
+	 * Runs a few warm-up rounds so that the JIT compiles the scanning loop,
+	 * then times the remaining rounds and prints the throughput.
+	 * 
+	 * @param args the optional program size (in megabytes), round count and
+	 * 		  input mode
+	 * @throws ScanErrorException if the generated program cannot be scanned
+	 * @throws IOException if the temporary file cannot be written
+	 */
+	public static void main(String[] args) throws ScanErrorException, IOException
+	{
+		int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		boolean mapped = args.length > 2 && args[2].equals("mapped");
+		boolean baseline = args.length > 2 && args[2].equals("baseline");
+		String workload = args.length > 3 ? args[3] : "mixed";
+		String program;
+		if (workload.equals("identifiers"))
+		{
+			program = generateIdentifierProgram(megabytes << 20);
+		}
+		else if (workload.equals("comments"))
+		{
+			program = generateCommentProgram(megabytes << 20);
+		}
+		else
+		{
+			program = generateProgram(megabytes << 20);
+		}
+		byte[] input = program.getBytes();
+		File file = null;
+		if (mapped)
+		{
+			file = File.createTempFile("scannerBenchmark", ".txt");
+			file.deleteOnExit();
+			Files.write(file.toPath(), input);
+		}
+		for (int i = 0; i < 3; i ++)
+		{
+			if (baseline)
+			{
+				scanBaseline(input);
+			}
+			else
+			{
+				scan(input, file);
+			}
+		}
+		int tokens = 0;
+		long allocated = allocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i ++)
+		{
+			tokens = baseline ? scanBaseline(input) : scan(input, file);
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		allocated = allocatedBytes() - allocated;
+		double mb = (double) input.length * rounds / (1 << 20);
+		System.out.printf("%s: scanned %.1f MB (%d tokens per round) in %.3f s: %.1f MB/s, %.1f bytes/token%n",
+				baseline ? "baseline" : mapped ? "mapped" : "stream", mb, tokens, seconds, mb / seconds, (double) allocated / ((long) tokens * rounds));
+	}
+}
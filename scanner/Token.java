@@ -1,6 +1,15 @@
 package scanner;
 /**
  * A Token is an object with a value and a type that represents each lexeme.
+ * Each Token also has a kind, which identifies exactly which keyword, operator,
+ * relational operator or delimiter it is so that the Parser can switch on it.
+ * Tokens are immutable, so lexemes with a fixed spelling share a single
+ * Token instance per kind (see forKind).
+ * 
+ * Because Tokens are shared, they do not hold their own source positions.
+ * Instead, a TokenStream reports the position of the token it returned last,
+ * packed into a single int by position(); lineOf and columnOf unpack it.
+ * A position of 0 means that the position is unknown.
  * 
  * @author Ashwin Rammohan
  * @version September 7, 2017
@@ -8,20 +17,123 @@ package scanner;
  */
 public class Token {
 	private final Scanner.TOKEN_TYPE T;
-	private String value;
+	private final Scanner.TOKEN_KIND kind;
+	private final String value;
+	private static final int COLUMN_BITS = 12;
+	private static final int COLUMN_MASK = (1 << COLUMN_BITS) - 1;
+	
+	/**
+	 * The largest line that a packed position can hold; later lines are
+	 * recorded as this line.
+	 */
+	public static final int MAX_LINE = (1 << (32 - COLUMN_BITS)) - 1;
+	private static final Token[] FIXED = new Token[Scanner.TOKEN_KIND.values().length];
+	
+	static
+	{
+		for (Scanner.TOKEN_KIND k: Scanner.TOKEN_KIND.values())
+		{
+			if (k.getSpelling() != null)
+			{
+				FIXED[k.ordinal()] = new Token(k.getSpelling(), k);
+			}
+		}
+	}
 	
 	/**
-	 * Creates a new token based on a value and a token type.
+	 * Creates a new token based on a value and a token type. The kind
+	 * of the token is looked up from its value.
 	 * 
 	 * @param str the value of the token
 	 * @param token_type the type that the token should be
 	 */
 	public Token(String str, Scanner.TOKEN_TYPE token_type)
+	{
+		this(str, token_type, Scanner.TOKEN_KIND.of(str, token_type));
+	}
+	
+	/**
+	 * Creates a new token based on a value and a token kind. The type
+	 * of the token is the type that the kind belongs to.
+	 * 
+	 * @param str the value of the token
+	 * @param token_kind the kind that the token should be
+	 */
+	public Token(String str, Scanner.TOKEN_KIND token_kind)
+	{
+		this(str, token_kind.getTokenType(), token_kind);
+	}
+	
+	/**
+	 * Creates a new token based on a value, a token type and a token kind.
+	 * 
+	 * @param str the value of the token
+	 * @param token_type the type that the token should be
+	 * @param token_kind the kind that the token should be
+	 */
+	public Token(String str, Scanner.TOKEN_TYPE token_type, Scanner.TOKEN_KIND token_kind)
 	{
 		T = token_type;
+		kind = token_kind;
 		value = str;
 	}
 	
+	/**
+	 * Packs a line and a column into a single int. Columns past 4095 are
+	 * recorded as 4095, and lines past MAX_LINE (1,048,575) as MAX_LINE, so
+	 * that a position in a very large source never wraps around to an
+	 * earlier line.
+	 * 
+	 * @param line the line, starting from 1
+	 * @param column the column, starting from 1
+	 * @return the packed position
+	 */
+	public static int position(int line, int column)
+	{
+		return (Math.min(line, MAX_LINE) << COLUMN_BITS) | Math.min(column, COLUMN_MASK);
+	}
+	
+	/**
+	 * Retrieves the line of a packed position.
+	 * 
+	 * @param position the packed position
+	 * @return the line, or 0 if the position is unknown
+	 */
+	public static int lineOf(int position)
+	{
+		return position >>> COLUMN_BITS;
+	}
+	
+	/**
+	 * Retrieves the column of a packed position.
+	 * 
+	 * @param position the packed position
+	 * @return the column, or 0 if the position is unknown
+	 */
+	public static int columnOf(int position)
+	{
+		return position & COLUMN_MASK;
+	}
+	
+	/**
+	 * Retrieves the shared Token for a kind of lexeme with a fixed spelling,
+	 * such as a keyword, an operator or a delimiter.
+	 * 
+	 * @param token_kind the kind of the token
+	 * @return the shared Token of that kind
+	 * @throws IllegalArgumentException if tokens of that kind have no
+	 * 		   fixed spelling (identifiers and numbers)
+	 */
+	public static Token forKind(Scanner.TOKEN_KIND token_kind)
+	{
+		Token t = FIXED[token_kind.ordinal()];
+		if (t == null)
+		{
+			throw new IllegalArgumentException("No fixed token for " + token_kind);
+		}
+		return t;
+	}
+	
 	/**
 	 * Retrieves the value of the token.
 	 * 
@@ -42,6 +154,16 @@ public class Token {
 		return T;
 	}
 	
+	/**
+	 * Retrieves the token kind.
+	 * 
+	 * @return the token kind
+	 */
+	public Scanner.TOKEN_KIND getKind()
+	{
+		return kind;
+	}
+	
 	/**
 	 * Creates a string representation of the string.
 	 * 
@@ -60,16 +182,25 @@ public class Token {
 	 */
 	public boolean equals(Object token)
 	{
-		return ((Token)(token)).getValue().equals(getValue());
+		if (this == token)
+		{
+			return true;
+		}
+		if (!(token instanceof Token))
+		{
+			return false;
+		}
+		return ((Token)(token)).value.equals(value);
 	}
 	
 	/**
-	 * Generates a hashcode for the token.
+	 * Generates a hashcode for the token. It is consistent with equals
+	 * and does not allocate, since a String caches its own hashcode.
 	 * 
 	 * @return the token's value's hashcode
 	 */
 	public int hashCode()
 	{
-		return toString().hashCode();
+		return value.hashCode();
 	}
 }
@@ -0,0 +1,46 @@
+package scanner;
+
+/**
+ * A TokenStream supplies tokens one at a time. The Scanner is the basic
+ * TokenStream; a PipelinedTokenStream supplies the tokens of a Scanner
+ * that is running on a separate thread.
+ * 
+ * @author Ashwin Rammohan
+ * @version October 17, 2026
+ *
+ */
+public interface TokenStream
+{
+	/**
+	 * Retrieves the next token in the stream. Once the end of the input
+	 * has been reached, an END_OF_FILE token is returned.
+	 * 
+	 * @return the next token
+	 * @throws ScanErrorException if the next lexeme cannot be scanned
+	 */
+	public Token nextToken() throws ScanErrorException;
+	
+	/**
+	 * Retrieves the line on which the token most recently returned by
+	 * nextToken() starts.
+	 * 
+	 * @return the line of the last token, starting from 1
+	 */
+	public int getLine();
+	
+	/**
+	 * Retrieves the column at which the token most recently returned by
+	 * nextToken() starts.
+	 * 
+	 * @return the column of the last token, starting from 1
+	 */
+	public int getColumn();
+	
+	/**
+	 * Retrieves the line and column of the token most recently returned by
+	 * nextToken(), packed into one int by Token.position().
+	 * 
+	 * @return the packed position of the last token
+	 */
+	public int getPosition();
+}